@@ -0,0 +1,46 @@
+package abalone.ai.evaluation;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes the weighted sums of a batch with the vector API: the states are
+ * taken a vector of lanes at a time, the int results of every function are
+ * converted to doubles and the weighted terms are accumulated in a register.
+ * The states that do not fill a vector are summed by the plain loops.
+ *
+ * Only loaded by ColumnSum.get() when the module jdk.incubator.vector is
+ * present. This class is kept in its own source root, src-vector, so src and
+ * test compile without the incubating module. To use it, compile src-vector
+ * after src onto the same class path with --add-modules
+ * jdk.incubator.vector, and run with the same flag.
+ */
+class VectorColumnSum extends ColumnSum
+{
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	// as many ints as there are doubles in a vector
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED.withShape(VectorShape
+			.forBitSize(DOUBLES.length() * Integer.SIZE));
+
+	@Override
+	void sum(double[] factors, int[][] columns, int count, double[] values)
+	{
+		int bound = DOUBLES.loopBound(count);
+		for (int k = 0; k < bound; k += DOUBLES.length())
+		{
+			DoubleVector sum = DoubleVector.zero(DOUBLES);
+			for (int i = 0; i < factors.length; i++)
+			{
+				DoubleVector column = (DoubleVector) IntVector.fromArray(INTS, columns[i], k).convertShape(
+						VectorOperators.I2D, DOUBLES, 0);
+				// multiply and add separately, as the plain loops do
+				sum = sum.add(column.mul(factors[i]));
+			}
+			sum.intoArray(values, k);
+		}
+		sum(factors, columns, bound, count, values);
+	}
+}
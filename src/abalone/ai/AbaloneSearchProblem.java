@@ -15,7 +15,7 @@ import abalone.model.Node;
 import abalone.model.Player;
 import abalone.model.Move.MoveType;
 
-class AbaloneSearchProblem implements MinimaxProblem
+public class AbaloneSearchProblem implements MinimaxProblem
 {
 
 	private static final long serialVersionUID = -3644069950454603818L;
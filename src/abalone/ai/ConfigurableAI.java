@@ -0,0 +1,396 @@
+package abalone.ai;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+import nl.maastrichtuniversity.dke.libreason.def.hashing.Hashable;
+import nl.maastrichtuniversity.dke.libreason.def.hashing.SymmetryHashable;
+import nl.maastrichtuniversity.dke.libreason.def.treesearch.AbstractMinimaxSearch;
+import nl.maastrichtuniversity.dke.libreason.def.treesearch.IterativeDeepeningSearch;
+import nl.maastrichtuniversity.dke.libreason.def.treesearch.SearchNode;
+import nl.maastrichtuniversity.dke.libreason.impl.treesearch.AbstractMinimaxNode;
+import nl.maastrichtuniversity.dke.libreason.impl.treesearch.AlphaBetaSearch;
+import nl.maastrichtuniversity.dke.libreason.impl.treesearch.DLMinimax;
+import nl.maastrichtuniversity.dke.libreason.impl.treesearch.HashingMinimaxSearch;
+import nl.maastrichtuniversity.dke.libreason.impl.treesearch.IDTreeSearch;
+import nl.maastrichtuniversity.dke.libreason.impl.treesearch.MinimaxRandomizer;
+import nl.maastrichtuniversity.dke.libreason.impl.treesearch.SymmetricHashingMinimaxSearch;
+import abalone.ai.SearchConfig.Ordering;
+import abalone.ai.evaluation.AbaloneEvaluator;
+import abalone.ai.evaluation.BatchEvaluator;
+import abalone.ai.evaluation.CachingEvaluator;
+import abalone.ai.evaluation.EvaluationCache;
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Move;
+import abalone.statistics.StatisticGenerator;
+
+/**
+ * The minimax player. Evaluator, time, depth, threads and the pruning
+ * techniques are taken from a SearchConfig, so the different AIs are only
+ * presets of this class.
+ */
+public class ConfigurableAI extends Ai implements StatisticGenerator
+{
+	private static final long serialVersionUID = -6521300792185413402L;
+	private static final MoveComparator moveTypeOrdering = new MoveComparator();
+	private static final SimpleMoveComparator lineSizeOrdering = new SimpleMoveComparator();
+	private static final Comparator<SearchNode> evaluationOrdering = new Comparator<SearchNode>()
+	{
+		@Override
+		public int compare(SearchNode a, SearchNode b)
+		{
+			return Double.compare(orderKey(a), orderKey(b));
+		}
+	};
+	private long startTime;
+	private int depthReached;
+
+	private class AbaloneNode extends AbstractMinimaxNode implements SymmetryHashable
+	{
+		private static final long serialVersionUID = -6277809797290009239L;
+		private int depth;
+		// Only every shares-th root move, starting with move number share, is
+		// searched from this root.
+		private int share, shares;
+		// smaller is searched earlier, see Ordering.EVALUATION
+		private double orderKey;
+
+		public AbaloneNode(GameState s, int share, int shares)
+		{
+			super(s);
+			depth = 0;
+			this.share = share;
+			this.shares = shares;
+		}
+
+		public AbaloneNode(GameState s, AbaloneNode parent, Action a)
+		{
+			super(s, parent, a);
+			depth = parent.depth + 1;
+		}
+
+		@Override
+		public Queue<SearchNode> expand()
+		{
+			SearchArena arena = SearchArena.get();
+			arena.recycle(depth);
+			Queue<SearchNode> successors = arena.successors(depth, getOrdering());
+			List<Action> actions = problem.generateActions(this.getState());
+			boolean batch = config.getOrdering() == Ordering.EVALUATION && evaluator instanceof BatchEvaluator;
+			GameState[] states = batch ? arena.batch(depth, actions.size()) : null;
+			List<Action> applied = batch ? new ArrayList<Action>(actions.size()) : null;
+			int i = 0;
+			for (Action a : actions)
+			{
+				// Every possible action in this state
+				if (depth == 0 && (i++ % shares) != share)
+				{
+					// this root move is searched by another thread
+					continue;
+				}
+
+				// copy the current state and apply the action on the state copy
+				GameState newState = arena.copyOf((GameState) getState(), depth);
+
+				if (config.isLegalityCheck() && !logic.isLegal(newState, (Move) a))
+				{
+					throw new RuntimeException("illegal move generated: " + a.toString());
+				}
+
+				logic.applyMove(newState, (Move) a);
+
+				if (batch)
+				{
+					states[applied.size()] = newState;
+					applied.add(a);
+				}
+				else
+				{
+					// create new node and add it to list
+					successors.add(new AbaloneNode(newState, this, a));
+				}
+			}
+
+			if (batch)
+			{
+				// the player to move here is the root player at even depths
+				double[] values = arena.values(depth);
+				((BatchEvaluator) evaluator).evalBatch(states, applied.size(), values);
+				double sign = (depth % 2 == 0) ? -1 : 1;
+				for (int k = 0; k < applied.size(); k++)
+				{
+					AbaloneNode n = new AbaloneNode(states[k], this, applied.get(k));
+					n.orderKey = sign * values[k];
+					successors.add(n);
+				}
+			}
+
+			return successors;
+		}
+
+		@Override
+		public long[] getSymmetryHashes()
+		{
+			return ((SymmetryHashable) getState()).getSymmetryHashes();
+		}
+
+		@Override
+		public long getHash()
+		{
+			return ((Hashable) getState()).getHash();
+		}
+	}
+
+	private GameLogic logic;
+	private SearchConfig config;
+	private AbaloneSearchProblem problem;
+	private transient ExecutorService executor;
+	private transient EvaluationCache cache;
+	private AbaloneEvaluator evaluator;
+	// the value of the previous move
+	private double lastValue = Double.NaN;
+
+	public ConfigurableAI(GameLogic logic, SearchConfig config)
+	{
+		this.logic = logic;
+		this.config = config;
+	}
+
+	public SearchConfig getConfig()
+	{
+		return config;
+	}
+
+	@Override
+	public Move decide(GameState state) throws InterruptedException
+	{
+		startTime = System.currentTimeMillis();
+		depthReached = 0;
+		problem = new AbaloneSearchProblem(state, logic);
+		evaluator = getSearchEvaluator();
+		evaluator.setInitialState(state);
+
+		AbaloneNode n;
+		if (config.getThreads() <= 1)
+		{
+			n = search(new AbaloneNode(state, 0, 1));
+		}
+		else
+		{
+			n = searchParallel(state);
+		}
+		lastValue = n.getValue();
+
+		if (config.isVerbose())
+		{
+			long time = System.currentTimeMillis() - startTime;
+			String line = getName() + " eval: " + n.getValue() + " time: " + time + " depth: " + depthReached;
+			if (cache != null)
+			{
+				line += " cache hits: " + cache.getHitRate();
+			}
+			System.out.println(line);
+		}
+
+		return (Move) n.getAction();
+	}
+
+	/**
+	 * Divides the root moves over the configured number of threads. Every
+	 * thread searches its share of the moves with its own search; the best of
+	 * their results is played.
+	 */
+	private AbaloneNode searchParallel(GameState state) throws InterruptedException
+	{
+		int threads = config.getThreads();
+		List<Callable<AbaloneNode>> tasks = new ArrayList<Callable<AbaloneNode>>(threads);
+		for (int i = 0; i < threads; i++)
+		{
+			final AbaloneNode root = new AbaloneNode(state, i, threads);
+			tasks.add(new Callable<AbaloneNode>()
+			{
+				@Override
+				public AbaloneNode call() throws InterruptedException
+				{
+					return search(root);
+				}
+			});
+		}
+
+		AbaloneNode best = null;
+		for (Future<AbaloneNode> result : getExecutor().invokeAll(tasks))
+		{
+			AbaloneNode n;
+			try
+			{
+				n = result.get();
+			}
+			catch (ExecutionException e)
+			{
+				throw new RuntimeException("search thread failed", e.getCause());
+			}
+			if (n != null && n.getAction() != null && (best == null || n.getValue() > best.getValue()))
+			{
+				best = n;
+			}
+		}
+		return best;
+	}
+
+	private AbaloneNode search(AbaloneNode root) throws InterruptedException
+	{
+		AbstractMinimaxSearch<AbaloneNode> s = createSearch();
+		if (config.getTimeLimit() > 0)
+		{
+			IterativeDeepeningSearch<AbaloneNode> id = new IDTreeSearch<AbaloneNode>(s, config.getTimeLimit());
+			AbaloneNode n = id.search(root);
+			recordDepth(id.getSearchStrategy().getDepthLimit());
+			return n;
+		}
+		else
+		{
+			recordDepth(config.getDepth());
+			return s.search(root);
+		}
+	}
+
+	private AbstractMinimaxSearch<AbaloneNode> createSearch()
+	{
+		AbstractMinimaxSearch<AbaloneNode> s = new DLMinimax<AbaloneNode>(problem, evaluator, config.getDepth());
+		if (config.isAlphaBeta())
+		{
+			s = new AlphaBetaSearch<AbaloneNode>(s);
+		}
+		switch (config.getHashing())
+		{
+			case PLAIN:
+				s = new HashingMinimaxSearch<AbaloneNode>(s);
+				break;
+			case SYMMETRIC:
+				s = new SymmetricHashingMinimaxSearch<AbaloneNode>(s);
+				break;
+			default:
+				break;
+		}
+		if (config.isRandomized())
+		{
+			s = new MinimaxRandomizer<AbaloneNode>(s);
+		}
+		return s;
+	}
+
+	/**
+	 * @return the evaluator of the configuration, behind the evaluation cache
+	 *         if one is configured. The cache is kept between moves and shared
+	 *         by all search threads.
+	 */
+	private synchronized AbaloneEvaluator getSearchEvaluator()
+	{
+		if (config.getTableSize() <= 0)
+		{
+			return config.getEvaluator();
+		}
+		if (cache == null)
+		{
+			cache = new EvaluationCache(config.getTableSize());
+		}
+		return new CachingEvaluator(config.getEvaluator(), cache);
+	}
+
+	/**
+	 * @return the evaluation cache, or null if none is configured or nothing
+	 *         has been searched yet. Its statistic is the hit rate.
+	 */
+	public EvaluationCache getEvaluationCache()
+	{
+		return cache;
+	}
+
+	private Comparator<SearchNode> getOrdering()
+	{
+		switch (config.getOrdering())
+		{
+			case MOVE_TYPE:
+				return moveTypeOrdering;
+			case LINE_SIZE:
+				return lineSizeOrdering;
+			case EVALUATION:
+				return (evaluator instanceof BatchEvaluator) ? evaluationOrdering : null;
+			default:
+				return null;
+		}
+	}
+
+	private static double orderKey(SearchNode node)
+	{
+		return ((AbaloneNode) node).orderKey;
+	}
+
+	private synchronized void recordDepth(int depth)
+	{
+		depthReached = Math.max(depthReached, depth);
+	}
+
+	private synchronized ExecutorService getExecutor()
+	{
+		if (executor == null)
+		{
+			executor = Executors.newFixedThreadPool(config.getThreads(), new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, "search");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Stops the threads of the parallel search. Players that are only used
+	 * for one game, e.g. in tournaments, have to be closed afterwards. A
+	 * closed player can still search; it starts new threads when needed.
+	 */
+	public synchronized void close()
+	{
+		if (executor != null)
+		{
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * @return the value of the move chosen by the last decide() for the
+	 *         player to move, or NaN before the first move
+	 */
+	public double getLastValue()
+	{
+		return lastValue;
+	}
+
+	@Override
+	public String getName()
+	{
+		return config.getName();
+	}
+
+	@Override
+	public double getCurrentState()
+	{
+		return System.currentTimeMillis() - startTime;
+	}
+}
@@ -0,0 +1,174 @@
+package abalone.ai;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+import nl.maastrichtuniversity.dke.libreason.def.treesearch.SearchNode;
+import abalone.gamestate.GameState;
+
+/**
+ * A per-thread pool of the objects that are needed to expand search nodes:
+ * the game states of the successors and the queue they are returned in.
+ *
+ * The pool is organised by depth. The minimax searches are depth first, so
+ * when a node at depth d is expanded, the subtrees below the previous
+ * expansion at depth d have been searched completely and its successor states
+ * are not needed anymore. Those buffers are therefore handed out again, across
+ * plies as well as across the iterations of an iterative deepening search.
+ * This keeps the number of live states at about depth times branching factor,
+ * no matter how many nodes are searched.
+ *
+ * The search nodes themselves are not pooled: their fields belong to the
+ * search library and cannot be reset.
+ */
+class SearchArena
+{
+	private static final ThreadLocal<SearchArena> arenas = new ThreadLocal<SearchArena>()
+	{
+		@Override
+		protected SearchArena initialValue()
+		{
+			return new SearchArena();
+		}
+	};
+
+	private List<List<GameState>> states = new ArrayList<List<GameState>>();
+	private List<Queue<SearchNode>> queues = new ArrayList<Queue<SearchNode>>();
+	private int[] used = new int[16];
+	private List<GameState[]> batches = new ArrayList<GameState[]>();
+	private List<double[]> values = new ArrayList<double[]>();
+
+	private SearchArena()
+	{
+	}
+
+	/**
+	 * @return the arena of the current thread
+	 */
+	public static SearchArena get()
+	{
+		return arenas.get();
+	}
+
+	/**
+	 * Starts a new expansion at the given depth. All states and the queue that
+	 * were handed out for the previous expansion at this depth are reused from
+	 * now on.
+	 *
+	 * @param depth
+	 *            the depth of the node that is expanded
+	 */
+	public void recycle(int depth)
+	{
+		ensureDepth(depth);
+		used[depth] = 0;
+	}
+
+	/**
+	 * Returns a copy of the given state, stored in a recycled buffer if one is
+	 * available.
+	 *
+	 * @param source
+	 *            the state to copy
+	 * @param depth
+	 *            the depth of the node that is expanded
+	 */
+	public GameState copyOf(GameState source, int depth)
+	{
+		ensureDepth(depth);
+		List<GameState> slab = states.get(depth);
+		GameState copy;
+		if (used[depth] < slab.size())
+		{
+			copy = slab.get(used[depth]);
+			source.copyInto(copy);
+		}
+		else
+		{
+			copy = source.clone();
+			slab.add(copy);
+		}
+		used[depth]++;
+		return copy;
+	}
+
+	/**
+	 * Returns an empty successor queue for the given depth, ordered by the
+	 * given comparator, or a FIFO queue if the comparator is null.
+	 */
+	public Queue<SearchNode> successors(int depth, Comparator<SearchNode> order)
+	{
+		ensureDepth(depth);
+		Queue<SearchNode> queue = queues.get(depth);
+		if (queue == null || !hasOrder(queue, order))
+		{
+			if (order == null)
+			{
+				queue = new ArrayDeque<SearchNode>(64);
+			}
+			else
+			{
+				queue = new PriorityQueue<SearchNode>(64, order);
+			}
+			queues.set(depth, queue);
+		}
+		queue.clear();
+		return queue;
+	}
+
+	/**
+	 * Returns an array for the successor states of an expansion at the given
+	 * depth, to evaluate them as one batch.
+	 */
+	public GameState[] batch(int depth, int size)
+	{
+		ensureDepth(depth);
+		GameState[] batch = batches.get(depth);
+		if (batch == null || batch.length < size)
+		{
+			batch = new GameState[Math.max(size, 64)];
+			batches.set(depth, batch);
+			values.set(depth, new double[batch.length]);
+		}
+		return batch;
+	}
+
+	/**
+	 * Returns the array for the values of the batch of the given depth, see
+	 * batch().
+	 */
+	public double[] values(int depth)
+	{
+		return values.get(depth);
+	}
+
+	private boolean hasOrder(Queue<SearchNode> queue, Comparator<SearchNode> order)
+	{
+		if (queue instanceof PriorityQueue<?>)
+		{
+			return ((PriorityQueue<SearchNode>) queue).comparator() == order;
+		}
+		return order == null;
+	}
+
+	private void ensureDepth(int depth)
+	{
+		while (states.size() <= depth)
+		{
+			states.add(new ArrayList<GameState>());
+			queues.add(null);
+			batches.add(null);
+			values.add(null);
+		}
+		if (used.length <= depth)
+		{
+			int[] larger = new int[Math.max(depth + 1, 2 * used.length)];
+			System.arraycopy(used, 0, larger, 0, used.length);
+			used = larger;
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package abalone.ai;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import abalone.ai.evaluation.AbaloneEvaluator;
+import abalone.ai.machinelearning.Weight;
+
+/**
+ * The configuration of a ConfigurableAI: which evaluator is used and how the
+ * search tree is built and pruned.
+ */
+public class SearchConfig implements Serializable
+{
+	private static final long serialVersionUID = 2811393915021748861L;
+
+	public enum Hashing
+	{
+		NONE, // no transposition detection
+		PLAIN, // transpositions are detected by the zobrist hash
+		SYMMETRIC // transpositions and symmetric positions are detected
+	}
+
+	public enum Ordering
+	{
+		NONE, // moves are searched in the order they are generated
+		MOVE_TYPE, // pushing moves first, then longer lines first
+		LINE_SIZE, // longer lines first
+		EVALUATION // best evaluated moves first, the moves are evaluated as one batch
+	}
+
+	private String name = "Configurable AI";
+	private AbaloneEvaluator evaluator;
+	private long timeLimit = 0;
+	private int depth = 1;
+	private int threads = 1;
+	private boolean alphaBeta = true;
+	private Hashing hashing = Hashing.NONE;
+	private boolean randomized = false;
+	private Ordering ordering = Ordering.NONE;
+	private boolean legalityCheck = false;
+	private boolean verbose = false;
+	private int tableSize = 0;
+
+	public SearchConfig()
+	{
+	}
+
+	/**
+	 * Reads a configuration from properties, so different configurations can
+	 * be compared without recompiling. Recognised keys are the names of the
+	 * setters without "set" (e.g. "timeLimit", "hashing"), plus "evaluator"
+	 * for the class name of the evaluator and "weights" for a comma separated
+	 * list of its weights. Missing keys keep their default value.
+	 *
+	 * @param properties
+	 *            the properties to read
+	 */
+	public static SearchConfig load(Properties properties)
+	{
+		SearchConfig config = new SearchConfig();
+		config.setName(properties.getProperty("name", config.getName()));
+		config.setTimeLimit(Long.parseLong(properties.getProperty("timeLimit", String.valueOf(config.getTimeLimit()))));
+		config.setDepth(Integer.parseInt(properties.getProperty("depth", String.valueOf(config.getDepth()))));
+		config.setThreads(Integer.parseInt(properties.getProperty("threads", String.valueOf(config.getThreads()))));
+		config.setAlphaBeta(Boolean.parseBoolean(properties.getProperty("alphaBeta", String.valueOf(config.isAlphaBeta()))));
+		config.setHashing(Hashing.valueOf(properties.getProperty("hashing", config.getHashing().name())));
+		config.setRandomized(Boolean.parseBoolean(properties.getProperty("randomized", String.valueOf(config.isRandomized()))));
+		config.setOrdering(Ordering.valueOf(properties.getProperty("ordering", config.getOrdering().name())));
+		config.setLegalityCheck(Boolean.parseBoolean(properties.getProperty("legalityCheck", String.valueOf(config.isLegalityCheck()))));
+		config.setVerbose(Boolean.parseBoolean(properties.getProperty("verbose", String.valueOf(config.isVerbose()))));
+		config.setTableSize(Integer.parseInt(properties.getProperty("tableSize", String.valueOf(config.getTableSize()))));
+
+		String evaluatorClass = properties.getProperty("evaluator");
+		if (evaluatorClass != null)
+		{
+			Genotype weights = new Genotype();
+			String weightList = properties.getProperty("weights");
+			if (weightList != null)
+			{
+				for (String w : weightList.split(","))
+				{
+					weights.add(new Weight(Double.parseDouble(w.trim())));
+				}
+			}
+			try
+			{
+				Class<?> c = Class.forName(evaluatorClass);
+				config.setEvaluator((AbaloneEvaluator) c.getConstructor(Genotype.class).newInstance(weights));
+			}
+			catch (Exception e)
+			{
+				throw new IllegalArgumentException("cannot create evaluator " + evaluatorClass, e);
+			}
+		}
+		return config;
+	}
+
+	/**
+	 * A name for this configuration, used as name of the player
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	public void setName(String name)
+	{
+		this.name = name;
+	}
+
+	public AbaloneEvaluator getEvaluator()
+	{
+		return evaluator;
+	}
+
+	public void setEvaluator(AbaloneEvaluator evaluator)
+	{
+		this.evaluator = evaluator;
+	}
+
+	/**
+	 * The time in milliseconds an iterative deepening search may take. If the
+	 * time limit is zero, a single search to the fixed depth is done.
+	 */
+	public long getTimeLimit()
+	{
+		return timeLimit;
+	}
+
+	public void setTimeLimit(long timeLimit)
+	{
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * The search depth in plies; the starting depth if a time limit is set.
+	 */
+	public int getDepth()
+	{
+		return depth;
+	}
+
+	public void setDepth(int depth)
+	{
+		this.depth = depth;
+	}
+
+	/**
+	 * The number of threads the root moves are divided over.
+	 */
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	public void setThreads(int threads)
+	{
+		this.threads = threads;
+	}
+
+	public boolean isAlphaBeta()
+	{
+		return alphaBeta;
+	}
+
+	public void setAlphaBeta(boolean alphaBeta)
+	{
+		this.alphaBeta = alphaBeta;
+	}
+
+	public Hashing getHashing()
+	{
+		return hashing;
+	}
+
+	public void setHashing(Hashing hashing)
+	{
+		this.hashing = hashing;
+	}
+
+	/**
+	 * Whether to choose randomly between equally valued moves.
+	 */
+	public boolean isRandomized()
+	{
+		return randomized;
+	}
+
+	public void setRandomized(boolean randomized)
+	{
+		this.randomized = randomized;
+	}
+
+	public Ordering getOrdering()
+	{
+		return ordering;
+	}
+
+	public void setOrdering(Ordering ordering)
+	{
+		this.ordering = ordering;
+	}
+
+	/**
+	 * Whether every generated move is checked by the game logic before it is
+	 * applied.
+	 */
+	public boolean isLegalityCheck()
+	{
+		return legalityCheck;
+	}
+
+	public void setLegalityCheck(boolean legalityCheck)
+	{
+		this.legalityCheck = legalityCheck;
+	}
+
+	/**
+	 * Whether the result of every search is printed.
+	 */
+	public boolean isVerbose()
+	{
+		return verbose;
+	}
+
+	public void setVerbose(boolean verbose)
+	{
+		this.verbose = verbose;
+	}
+
+	/**
+	 * The number of entries of the evaluation cache, zero for no cache. The
+	 * cache only works for states with a zobrist hash.
+	 */
+	public int getTableSize()
+	{
+		return tableSize;
+	}
+
+	public void setTableSize(int tableSize)
+	{
+		this.tableSize = tableSize;
+	}
+}
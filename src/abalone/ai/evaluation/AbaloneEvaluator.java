@@ -0,0 +1,17 @@
+package abalone.ai.evaluation;
+
+import nl.maastrichtuniversity.dke.libreason.def.SearchState;
+import nl.maastrichtuniversity.dke.libreason.def.heuristic.Evaluator;
+
+/**
+ * An evaluator for abalone positions. The evaluation is always done from the
+ * point of view of the player that is to move in the initial state, i.e. the
+ * state at the root of the search.
+ */
+public interface AbaloneEvaluator extends Evaluator<Double>
+{
+	/**
+	 * Sets the state the search starts from.
+	 */
+	public void setInitialState(SearchState state);
+}
@@ -0,0 +1,16 @@
+package abalone.ai.evaluation;
+
+import abalone.gamestate.GameState;
+
+/**
+ * An evaluator that can evaluate several states in one call, e.g. all
+ * children of a node, more cheaply than one call per state.
+ */
+public interface BatchEvaluator extends AbaloneEvaluator
+{
+	/**
+	 * Evaluates states[0 .. count - 1] and stores the results, the same values
+	 * eval() returns, in values[0 .. count - 1].
+	 */
+	public void evalBatch(GameState[] states, int count, double[] values);
+}
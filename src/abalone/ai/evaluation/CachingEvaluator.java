@@ -0,0 +1,108 @@
+package abalone.ai.evaluation;
+
+import nl.maastrichtuniversity.dke.libreason.def.SearchState;
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import abalone.gamestate.GameState;
+
+/**
+ * Looks up evaluations of another evaluator in an EvaluationCache before
+ * computing them. The key combines the zobrist hash of the state, the weights
+ * of the evaluator and the player the evaluation is done for, so one cache
+ * can be shared by different evaluators. States without a hash are always
+ * evaluated directly.
+ *
+ * A batch evaluation stores the values of all states
+ * of the batch, so later evaluations of the same states are lookups.
+ */
+public class CachingEvaluator implements BatchEvaluator
+{
+	private AbaloneEvaluator evaluator;
+	private EvaluationCache cache;
+	private long identity;
+
+	public CachingEvaluator(AbaloneEvaluator evaluator, EvaluationCache cache)
+	{
+		this.evaluator = evaluator;
+		this.cache = cache;
+	}
+
+	@Override
+	public void setInitialState(SearchState state)
+	{
+		evaluator.setInitialState(state);
+		GameState s = (GameState) state;
+		int perspective = s.getPlayers().indexOf(s.getCurrentPlayer());
+		identity = weightIdentity(evaluator) ^ ((perspective + 1) * 0xC2B2AE3D27D4EB4FL);
+	}
+
+	@Override
+	public Double eval(SearchState state)
+	{
+		GameState s = (GameState) state;
+		if (!s.isHashed())
+		{
+			return evaluator.eval(state);
+		}
+		long key = s.getHash() ^ identity;
+		double value = cache.get(key);
+		if (Double.isNaN(value))
+		{
+			value = evaluator.eval(state);
+			cache.put(key, value);
+		}
+		return value;
+	}
+
+	@Override
+	public void evalBatch(GameState[] states, int count, double[] values)
+	{
+		if (evaluator instanceof BatchEvaluator)
+		{
+			((BatchEvaluator) evaluator).evalBatch(states, count, values);
+		}
+		else
+		{
+			for (int k = 0; k < count; k++)
+			{
+				values[k] = evaluator.eval(states[k]);
+			}
+		}
+		for (int k = 0; k < count; k++)
+		{
+			if (states[k].isHashed())
+			{
+				cache.put(states[k].getHash() ^ identity, values[k]);
+			}
+		}
+	}
+
+	public EvaluationCache getCache()
+	{
+		return cache;
+	}
+
+	/**
+	 * Computes a fingerprint of the weights of an evaluator. Evaluators that
+	 * are not genetic individuals are told apart by their identity.
+	 */
+	@SuppressWarnings("unchecked")
+	static long weightIdentity(AbaloneEvaluator evaluator)
+	{
+		long h = evaluator.getClass().getName().hashCode();
+		if (evaluator instanceof GeneticIndividual)
+		{
+			for (Gene<Object> gene : ((GeneticIndividual) evaluator).getPhenotype())
+			{
+				Object value = gene.getValue();
+				long bits = (value instanceof Double) ? Double.doubleToLongBits((Double) value) : value.hashCode();
+				h = (h ^ bits) * 0x100000001B3L;
+			}
+		}
+		else
+		{
+			h = h * 31 + System.identityHashCode(evaluator);
+		}
+		return h * 0x9E3779B97F4A7C15L;
+	}
+}
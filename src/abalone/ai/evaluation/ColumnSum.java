@@ -0,0 +1,70 @@
+package abalone.ai.evaluation;
+
+/**
+ * Computes the weighted sums of a batch that is stored as one column of
+ * function results per function (see LinearEvaluator.evalBatch):
+ * values[k] = factors[0] * columns[0][k] + factors[1] * columns[1][k] + ...
+ *
+ * This class computes the sums with plain loops. If the JVM has the vector
+ * API (the module jdk.incubator.vector, which has to be added with
+ * --add-modules) and VectorColumnSum was compiled from the source root
+ * src-vector, get() returns a VectorColumnSum instead, which computes several
+ * states per instruction. Both add the terms in the same order, so they
+ * return the same values.
+ */
+class ColumnSum
+{
+	private static final ColumnSum instance = create();
+
+	/**
+	 * @return the fastest implementation this JVM supports
+	 */
+	static ColumnSum get()
+	{
+		return instance;
+	}
+
+	private static ColumnSum create()
+	{
+		try
+		{
+			if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+			{
+				return (ColumnSum) Class.forName("abalone.ai.evaluation.VectorColumnSum").getDeclaredConstructor().newInstance();
+			}
+		}
+		catch (Throwable e)
+		{
+			// compiled or run without the vector API
+		}
+		return new ColumnSum();
+	}
+
+	/**
+	 * Stores the sums of states 0 .. count - 1 in values.
+	 */
+	void sum(double[] factors, int[][] columns, int count, double[] values)
+	{
+		sum(factors, columns, 0, count, values);
+	}
+
+	/**
+	 * Computes the sums of states from .. to - 1 with plain loops.
+	 */
+	final void sum(double[] factors, int[][] columns, int from, int to, double[] values)
+	{
+		for (int k = from; k < to; k++)
+		{
+			values[k] = 0;
+		}
+		for (int i = 0; i < factors.length; i++)
+		{
+			double factor = factors[i];
+			int[] column = columns[i];
+			for (int k = from; k < to; k++)
+			{
+				values[k] += factor * column[k];
+			}
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package abalone.ai.evaluation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.maastrichtuniversity.dke.libreason.def.SearchState;
+import abalone.gamestate.GameState;
+
+/**
+ * A weighted sum of several feature evaluators. The features of a state are
+ * extracted once and shared by all of them.
+ */
+public class EnsembleEvaluator implements FeatureEvaluator, Serializable
+{
+	private static final long serialVersionUID = -3019934872546184917L;
+	private List<FeatureEvaluator> evaluators = new ArrayList<FeatureEvaluator>();
+	private List<Double> weights = new ArrayList<Double>();
+	private GameState initialState;
+
+	public void add(FeatureEvaluator evaluator, double weight)
+	{
+		evaluators.add(evaluator);
+		weights.add(weight);
+	}
+
+	@Override
+	public void setInitialState(SearchState state)
+	{
+		initialState = (GameState) state;
+		for (FeatureEvaluator e : evaluators)
+		{
+			e.setInitialState(state);
+		}
+	}
+
+	@Override
+	public Double eval(SearchState state)
+	{
+		int[] features = FeatureExtractor.vector();
+		FeatureExtractor.extract((GameState) state, initialState.getCurrentPlayer(), features);
+		return combine(features);
+	}
+
+	@Override
+	public double combine(int[] features)
+	{
+		double eval = 0;
+		for (int i = 0; i < evaluators.size(); i++)
+		{
+			eval += weights.get(i) * evaluators.get(i).combine(features);
+		}
+		return eval;
+	}
+}
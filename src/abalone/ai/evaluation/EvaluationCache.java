@@ -0,0 +1,92 @@
+package abalone.ai.evaluation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import abalone.statistics.StatisticGenerator;
+
+/**
+ * A fixed size table of evaluation results that can be shared by several
+ * search threads without locking. Every slot holds a key and a value; the key
+ * is stored xor-ed with the value, so an entry that was torn by two threads
+ * writing the same slot at the same time does not match its key anymore and
+ * is treated as a miss. Colliding entries simply overwrite each other.
+ *
+ * As a statistic, the cache reports its hit rate.
+ */
+public class EvaluationCache implements StatisticGenerator
+{
+	private final AtomicLongArray keys;
+	private final AtomicLongArray values;
+	private final int mask;
+	private final LongAdder lookups = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * @param size
+	 *            the number of entries, rounded up to a power of two
+	 */
+	public EvaluationCache(int size)
+	{
+		int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+		keys = new AtomicLongArray(capacity);
+		values = new AtomicLongArray(capacity);
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @return the stored value for the key, or NaN if there is none
+	 */
+	public double get(long key)
+	{
+		lookups.increment();
+		int i = index(key);
+		long value = values.get(i);
+		if ((keys.get(i) ^ value) == key)
+		{
+			hits.increment();
+			return Double.longBitsToDouble(value);
+		}
+		return Double.NaN;
+	}
+
+	public void put(long key, double value)
+	{
+		int i = index(key);
+		long bits = Double.doubleToRawLongBits(value);
+		values.lazySet(i, bits);
+		keys.lazySet(i, key ^ bits);
+	}
+
+	private int index(long key)
+	{
+		// keys are combined by xor, so the bits are mixed before they are used
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & mask;
+	}
+
+	public long getLookups()
+	{
+		return lookups.sum();
+	}
+
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	/**
+	 * @return the fraction of lookups that were answered from the cache
+	 */
+	public double getHitRate()
+	{
+		long l = lookups.sum();
+		return l == 0 ? 0 : hits.sum() / (double) l;
+	}
+
+	@Override
+	public double getCurrentState()
+	{
+		return getHitRate();
+	}
+}
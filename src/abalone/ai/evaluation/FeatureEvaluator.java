@@ -0,0 +1,16 @@
+package abalone.ai.evaluation;
+
+/**
+ * An evaluator that is a combination of the features of FeatureExtractor.
+ * Several of them can evaluate a state from one extracted feature vector.
+ */
+public interface FeatureEvaluator extends AbaloneEvaluator
+{
+	/**
+	 * @param features
+	 *            the features of the state to evaluate, seen from the player
+	 *            that is to move in the initial state
+	 * @return the evaluation of the state
+	 */
+	public double combine(int[] features);
+}
@@ -0,0 +1,80 @@
+package abalone.ai.evaluation;
+
+import java.util.Map;
+
+import abalone.gamestate.FeatureAccumulator;
+import abalone.gamestate.GameState;
+import abalone.model.Player;
+
+/**
+ * Fills the feature vector all feature based evaluators are computed from.
+ * The vector is a plain int array with an own and an opponent entry for
+ * every feature, seen from one player:
+ * - the sum of the manhattan distances of the marbles to the center
+ * - the number of neighbouring pairs of marbles of the player
+ * - the number of marbles in between two opponent marbles
+ * - the number of opponent marbles in between an own and an opponent marble
+ * - the number of lost marbles
+ *
+ * Evaluators that run on the same state, e.g. for analysis or ensemble play,
+ * can share one extracted vector, see FeatureEvaluator.
+ */
+public final class FeatureExtractor
+{
+	public static final int OWN_MANHATTAN = 0;
+	public static final int OPPONENT_MANHATTAN = 1;
+	public static final int OWN_TEAMMATES = 2;
+	public static final int OPPONENT_TEAMMATES = 3;
+	public static final int OWN_BREAK_GROUP = 4;
+	public static final int OPPONENT_BREAK_GROUP = 5;
+	public static final int OWN_STRENGTHEN_GROUP = 6;
+	public static final int OPPONENT_STRENGTHEN_GROUP = 7;
+	public static final int OWN_LOST = 8;
+	public static final int OPPONENT_LOST = 9;
+	public static final int NUMBER_OF_FEATURES = 10;
+
+	private static final ThreadLocal<int[]> vectors = new ThreadLocal<int[]>()
+	{
+		@Override
+		protected int[] initialValue()
+		{
+			return new int[NUMBER_OF_FEATURES];
+		}
+	};
+
+	private FeatureExtractor()
+	{
+	}
+
+	/**
+	 * Writes the features of the state, seen from the given player, into the
+	 * first NUMBER_OF_FEATURES elements of the vector.
+	 */
+	public static void extract(GameState s, Player player, int[] features)
+	{
+		Player opponent = s.getPlayers().get((s.getPlayers().indexOf(player) + 1) % 2);
+		// The sums are kept up to date by the state while marbles move.
+		FeatureAccumulator sums = s.getFeatures();
+		Map<Player, Integer> lostMarbles = s.getMarblesRemoved();
+
+		features[OWN_MANHATTAN] = sums.getManhattanDistance(player);
+		features[OPPONENT_MANHATTAN] = sums.getManhattanDistance(opponent);
+		features[OWN_TEAMMATES] = sums.getTeammates(player);
+		features[OPPONENT_TEAMMATES] = sums.getTeammates(opponent);
+		features[OWN_BREAK_GROUP] = sums.getBreakStrongGroup(player);
+		features[OPPONENT_BREAK_GROUP] = sums.getBreakStrongGroup(opponent);
+		features[OWN_STRENGTHEN_GROUP] = sums.getStrengthenGroup(player);
+		features[OPPONENT_STRENGTHEN_GROUP] = sums.getStrengthenGroup(opponent);
+		features[OWN_LOST] = lostMarbles.get(player);
+		features[OPPONENT_LOST] = lostMarbles.get(opponent);
+	}
+
+	/**
+	 * @return the reusable feature vector of the calling thread. It holds the
+	 *         features of the last extract() into it until the next one.
+	 */
+	public static int[] vector()
+	{
+		return vectors.get();
+	}
+}
@@ -10,22 +10,16 @@ package abalone.ai.evaluation;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 
 import nl.maastrichtuniversity.dke.libreason.def.SearchState;
-import nl.maastrichtuniversity.dke.libreason.def.heuristic.Evaluator;
 import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
 import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
 import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
 import abalone.ai.machinelearning.Weight;
 import abalone.gamestate.GameState;
-import abalone.model.Direction;
-import abalone.model.Node;
-import abalone.model.Player;
 
-public class LinearEvaluator implements GeneticIndividual, Evaluator<Double>, Serializable
+public class LinearEvaluator implements GeneticIndividual, BatchEvaluator, FeatureEvaluator, Serializable
 {
 	private static final long serialVersionUID = 1875360571407017164L;
 	private double fitness;
@@ -43,10 +37,34 @@ public class LinearEvaluator implements GeneticIndividual, Evaluator<Double>, Se
 	public final double mutationRate = 0.2;
 	public final double mutationFactor = 2;
 
-	// Variables for scaling the functions.
-	private List<Integer> max = new ArrayList<Integer>(6);
-	private List<Integer> min = new ArrayList<Integer>(6);
-	private List<Integer> functionResults;
+	public static final int NUMBER_OF_FUNCTIONS = 6;
+
+	// Variables for scaling the functions. Function i is divided by
+	// max[i] - min[i]; scale[i] holds the reciprocal of that range.
+	private static final int[] max = { 46, 56, 11, 84, 6, 6 };
+	private static final int[] min = { -46, -56, -11, -84, 0, 0 };
+	private static final double[] scale = new double[NUMBER_OF_FUNCTIONS];
+	static
+	{
+		for (int i = 0; i < NUMBER_OF_FUNCTIONS; i++)
+		{
+			scale[i] = 1.0 / (max[i] - min[i]);
+		}
+	}
+
+	// The generator of the genetic operators, see setRandom()
+	private static volatile Random random = new Random();
+
+	// The weights of the phenotype as primitives, refreshed by syncWeights()
+	private transient volatile double[] weights;
+	// The weights multiplied with the scales, the factors of the function
+	// results in eval() and evalBatch() alike
+	private transient volatile double[] factors;
+	// Reusable buffer per search thread for the function results
+	private transient volatile ThreadLocal<int[]> functionResults;
+	// Reusable buffer per search thread for the function results of a batch,
+	// one column per function
+	private transient volatile ThreadLocal<int[][]> batchColumns;
 
 	
 	private static Genotype generatePhenotype()
@@ -54,28 +72,24 @@ public class LinearEvaluator implements GeneticIndividual, Evaluator<Double>, Se
 		Genotype phenotype = new Genotype();
 		for(int i = 0; i < 6;i++)
 		{
-			phenotype.add(new Weight());
+			phenotype.add(new Weight(2 * random.nextDouble() - 1));
 		}
 		return phenotype;
 	}
+
+	/**
+	 * Sets the generator the random weights of new evaluators, mutation and
+	 * crossover are drawn from, e.g. a seeded one to repeat a genetic search.
+	 */
+	public static void setRandom(Random random)
+	{
+		LinearEvaluator.random = random;
+	}
 	
 	public LinearEvaluator(Genotype phenotype)
 	{
 		this.phenotype = phenotype;
-		max.add(0, 46);
-		max.add(1, 56);
-		max.add(2, 11);
-		max.add(3, 84);
-		max.add(4, 6);
-		max.add(5, 6);
-
-		min.add(0, -46);
-		min.add(1, -56);
-		min.add(2, -11);
-		min.add(3, -84);
-		min.add(4, 0);
-		min.add(5, 0);
-
+		syncWeights();
 	}
 
 	/*
@@ -100,103 +114,238 @@ public class LinearEvaluator implements GeneticIndividual, Evaluator<Double>, Se
 	public void setInitialState(SearchState state)
 	{
 		this.initialState = (GameState) state;
+		// the genotype might have been changed by the genetic algorithm
+		syncWeights();
 	}
 
-	public Double eval(SearchState state)
+	/**
+	 * Copies the weights of the phenotype into the primitive array that is
+	 * used by the evaluation.
+	 */
+	public void syncWeights()
 	{
+		double[] w = new double[NUMBER_OF_FUNCTIONS];
+		for (int i = 0; i < NUMBER_OF_FUNCTIONS; i++)
+		{
+			w[i] = (Double) phenotype.get(i).getValue();
+		}
+		double[] f = new double[NUMBER_OF_FUNCTIONS];
+		for (int i = 0; i < NUMBER_OF_FUNCTIONS; i++)
+		{
+			f[i] = w[i] * scale[i];
+		}
+		factors = f;
+		weights = w;
+	}
 
+	public Double eval(SearchState state)
+	{
 		// Checks to see if the searchstate given is an instance of a gamestate.
 		if (state instanceof GameState)
 		{
-			// Cast searchstate to gamestate.
-			GameState s = (GameState) state;
-			// Get the current player.
-			Player currentPlayer = initialState.getCurrentPlayer();
-			// Get the opponent player.
-			Player opponentPlayer = initialState.getOpponentPlayer();
-			// Get current player's marbles.
-			Set<Node> currentPlayerMarbles = s.getMarbles(currentPlayer);
-			// Get opponent player's marbles.
-			Set<Node> opponentPlayerMarbles = s.getMarbles(opponentPlayer);
-			// Get the lost marbles per player.
-			Map<Player, Integer> lostMarbles = s.getMarblesRemoved();
-
-			// Calculations for current player.
-			int currentPlayerManhattanDistanceCount = 0;
-			int currentPlayerTeammatesCount = 0;
-			int currentPlayerBreakStrongGroupStrategyCount = 0;
-			int currentPlayerStrengthenGroupStrategyCount = 0;
-			for (Node node : currentPlayerMarbles)
-			{
-				currentPlayerManhattanDistanceCount += node.getManhDist();
-				for (Direction d : Direction.UPPER_LEFT)
-				{
-					if (s.getMarbleOwner(node.getNeighbour(d)) == s.getMarbleOwner(node))
-					{
-						currentPlayerTeammatesCount++;
-					}
-					if (s.getMarbleOwner(node.getNeighbour(d)) == opponentPlayer && s.getMarbleOwner(node.getNeighbour(d.getOpposite())) == opponentPlayer)
-					{
-						currentPlayerBreakStrongGroupStrategyCount++;
-					}
-					if (s.getMarbleOwner(node.getNeighbour(d)) == opponentPlayer && s.getMarbleOwner(node.getNeighbour(d.getOpposite())) == currentPlayer)
-					{
-						currentPlayerStrengthenGroupStrategyCount++;
-					}
-				}
-			}
+			int[] results = getFunctionResultBuffer();
+			extractFunctionResults((GameState) state, results);
+			return weightedSum(results);
+		}
+		else
+		{
+			return 0.0;
+		}
+	}
 
-			// Calculations for opponent player.
-			int opponentPlayerManhattanDistanceCount = 0;
-			int opponentPlayerTeammatesCount = 0;
-			int opponentPlayerBreakStrongGroupStrategyCount = 0;
-			int opponentPlayerStrengthenGroupStrategyCount = 0;
-			for (Node node : opponentPlayerMarbles)
-			{
-				opponentPlayerManhattanDistanceCount += node.getManhDist();
-				for (Direction d : Direction.UPPER_LEFT)
-				{
-					if (s.getMarbleOwner(node.getNeighbour(d)) == s.getMarbleOwner(node))
-					{
-						opponentPlayerTeammatesCount++;
-					}
-					if (s.getMarbleOwner(node.getNeighbour(d)) == currentPlayer && s.getMarbleOwner(node.getNeighbour(d.getOpposite())) == currentPlayer)
-					{
-						opponentPlayerBreakStrongGroupStrategyCount++;
-					}
-					if (s.getMarbleOwner(node.getNeighbour(d)) == currentPlayer && s.getMarbleOwner(node.getNeighbour(d.getOpposite())) == opponentPlayer)
-					{
-						opponentPlayerStrengthenGroupStrategyCount++;
-					}
-				}
-			}
-			// Calculation of individual functions
-			functionResults = new ArrayList<Integer>();
-			functionResults.add(0,opponentPlayerManhattanDistanceCount - currentPlayerManhattanDistanceCount);
-			functionResults.add(1,currentPlayerTeammatesCount - opponentPlayerTeammatesCount);
-			functionResults.add(2,currentPlayerBreakStrongGroupStrategyCount - opponentPlayerBreakStrongGroupStrategyCount);
-			functionResults.add(3,currentPlayerStrengthenGroupStrategyCount - opponentPlayerStrengthenGroupStrategyCount);
-			functionResults.add(4,lostMarbles.get(opponentPlayer));
-			functionResults.add(5,lostMarbles.get(currentPlayer));
-
-			// Evaluation.
-			double eval = 0;
-
-			for (int i = 0; i < functionResults.size(); i++)
+	/**
+	 * Evaluates a batch in two passes: first the function results of all
+	 * states are gathered into one column per function, then the weighted sum
+	 * is taken column by column, with the vector API if the JVM has it (see
+	 * ColumnSum).
+	 */
+	@Override
+	public void evalBatch(GameState[] states, int count, double[] values)
+	{
+		int[][] columns = getBatchColumns(count);
+		int[] results = getFunctionResultBuffer();
+		for (int k = 0; k < count; k++)
+		{
+			extractFunctionResults(states[k], results);
+			for (int i = 0; i < NUMBER_OF_FUNCTIONS; i++)
 			{
-				double weight = (Double) phenotype.get(i).getValue();				
-				eval += weight * (functionResults.get(i) / ((double) (max.get(i) - min.get(i))));
+				columns[i][k] = results[i];
 			}
-			return eval;
 		}
-		else
+
+		double[] f = factors;
+		if (f == null)
 		{
-			return 0.0;
+			// deserialized evaluator
+			syncWeights();
+			f = factors;
+		}
+		ColumnSum.get().sum(f, columns, count, values);
+	}
+
+	/**
+	 * Computes the individual functions of the evaluation for the given state
+	 * without allocating anything.
+	 * 
+	 * @param s
+	 *            the state to evaluate
+	 * @param results
+	 *            an array of at least NUMBER_OF_FUNCTIONS elements the
+	 *            results are written to
+	 */
+	public void extractFunctionResults(GameState s, int[] results)
+	{
+		int[] features = FeatureExtractor.vector();
+		FeatureExtractor.extract(s, initialState.getCurrentPlayer(), features);
+		functionResults(features, results);
+	}
+
+	/**
+	 * Computes the individual functions from the features of a state.
+	 */
+	private static void functionResults(int[] f, int[] results)
+	{
+		results[0] = f[FeatureExtractor.OPPONENT_MANHATTAN] - f[FeatureExtractor.OWN_MANHATTAN];
+		results[1] = f[FeatureExtractor.OWN_TEAMMATES] - f[FeatureExtractor.OPPONENT_TEAMMATES];
+		results[2] = f[FeatureExtractor.OWN_BREAK_GROUP] - f[FeatureExtractor.OPPONENT_BREAK_GROUP];
+		results[3] = f[FeatureExtractor.OWN_STRENGTHEN_GROUP] - f[FeatureExtractor.OPPONENT_STRENGTHEN_GROUP];
+		results[4] = f[FeatureExtractor.OPPONENT_LOST];
+		results[5] = f[FeatureExtractor.OWN_LOST];
+	}
+
+	@Override
+	public double combine(int[] features)
+	{
+		int[] results = getFunctionResultBuffer();
+		functionResults(features, results);
+		return weightedSum(results);
+	}
+
+	/**
+	 * @return the factor function i is multiplied with before it is weighted
+	 */
+	public static double getScale(int i)
+	{
+		return scale[i];
+	}
+
+	/**
+	 * @return the weighted, scaled sum of the given function results, with the
+	 *         same operations as ColumnSum, so eval() and evalBatch() return
+	 *         the same values
+	 */
+	public double weightedSum(int[] results)
+	{
+		double[] f = factors;
+		if (f == null)
+		{
+			// deserialized evaluator
+			syncWeights();
+			f = factors;
+		}
+		double eval = 0;
+		for (int i = 0; i < NUMBER_OF_FUNCTIONS; i++)
+		{
+			eval += f[i] * results[i];
 		}
+		return eval;
 	}
 
+	/**
+	 * @return the largest absolute value an evaluation with these weights can
+	 *         have
+	 */
+	public double getBound()
+	{
+		double[] w = weights;
+		if (w == null)
+		{
+			// deserialized evaluator
+			syncWeights();
+			w = weights;
+		}
+		double upper = 0;
+		double lower = 0;
+		for (int i = 0; i < NUMBER_OF_FUNCTIONS; i++)
+		{
+			double a = w[i] * max[i] * scale[i];
+			double b = w[i] * min[i] * scale[i];
+			upper += Math.max(a, b);
+			lower += Math.min(a, b);
+		}
+		return Math.max(upper, -lower);
+	}
+
+	/**
+	 * @return the function results of the last evaluation done by the
+	 *         calling thread
+	 */
 	public List<Integer> getFunctionResults()
 	{
+		int[] results = getFunctionResultBuffer();
+		List<Integer> list = new ArrayList<Integer>(NUMBER_OF_FUNCTIONS);
+		for (int r : results)
+		{
+			list.add(r);
+		}
+		return list;
+	}
+
+	private int[] getFunctionResultBuffer()
+	{
+		ThreadLocal<int[]> buffers = functionResults;
+		if (buffers == null)
+		{
+			buffers = createBuffers();
+		}
+		return buffers.get();
+	}
+
+	private int[][] getBatchColumns(int count)
+	{
+		ThreadLocal<int[][]> buffers = batchColumns;
+		if (buffers == null)
+		{
+			buffers = createBatchBuffers();
+		}
+		int[][] columns = buffers.get();
+		if (columns[0].length < count)
+		{
+			columns = new int[NUMBER_OF_FUNCTIONS][Math.max(count, 2 * columns[0].length)];
+			buffers.set(columns);
+		}
+		return columns;
+	}
+
+	private synchronized ThreadLocal<int[][]> createBatchBuffers()
+	{
+		if (batchColumns == null)
+		{
+			batchColumns = new ThreadLocal<int[][]>()
+			{
+				@Override
+				protected int[][] initialValue()
+				{
+					return new int[NUMBER_OF_FUNCTIONS][64];
+				}
+			};
+		}
+		return batchColumns;
+	}
+
+	private synchronized ThreadLocal<int[]> createBuffers()
+	{
+		if (functionResults == null)
+		{
+			functionResults = new ThreadLocal<int[]>()
+			{
+				@Override
+				protected int[] initialValue()
+				{
+					return new int[NUMBER_OF_FUNCTIONS];
+				}
+			};
+		}
 		return functionResults;
 	}
 	
@@ -236,7 +385,7 @@ public class LinearEvaluator implements GeneticIndividual, Evaluator<Double>, Se
 
 	public GeneticIndividual reproduceWith(GeneticIndividual j)
 	{
-		Random r = new Random();
+		Random r = random;
 		int splitPoint = r.nextInt(phenotype.size());
 		Genotype newPhenotype = new Genotype();
 		for (int i = 0; i < splitPoint; i++)
@@ -253,7 +402,7 @@ public class LinearEvaluator implements GeneticIndividual, Evaluator<Double>, Se
 
 	public void mutate()
 	{
-		Random r = new Random();
+		Random r = random;
 
 		for (Gene<Double> w : phenotype)
 		{
@@ -301,5 +450,6 @@ public class LinearEvaluator implements GeneticIndividual, Evaluator<Double>, Se
 			double scaledValue = ((Double) weight.getValue()) / totalSum;
 			weight.setValue(scaledValue);
 		}
+		syncWeights();
 	}
 }
@@ -0,0 +1,482 @@
+package abalone.ai.evaluation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import nl.maastrichtuniversity.dke.libreason.def.SearchState;
+import abalone.gamestate.GameState;
+import abalone.gamestate.StateAccumulator;
+import abalone.model.Board;
+import abalone.model.Direction;
+import abalone.model.Node;
+import abalone.model.Player;
+
+/**
+ * An evaluator that sums learned weights from lookup tables. The board is
+ * covered with small groups of nodes, n-tuples: all lines of three nodes and
+ * all rosettes of a node with its six neighbours. The contents of a tuple
+ * (empty, own or opponent marble per node) are read as a number in base 3,
+ * which is the index into the table of the tuple. Tuples that are mapped onto
+ * each other by one of the 12 symmetries of the board share their table, so
+ * symmetric positions have the same value.
+ * Besides the tables there is one weight for the difference in lost marbles.
+ *
+ * The indices of the tuples are attached to the states as a StateAccumulator,
+ * so they are updated incrementally while marbles move and an evaluation is
+ * only a sum of table lookups.
+ *
+ * The weights are trained with learn() or learnGame() from positions of
+ * (self-play) games and can be saved to and loaded from a file. Training must
+ * not run while the evaluator is used by a search.
+ */
+public class NTupleEvaluator implements AbaloneEvaluator, Serializable
+{
+	private static final long serialVersionUID = -4620853094151812335L;
+	private static final int FILE_MAGIC = 0x4E545550; // "NTUP"
+
+	// weights[t][i] is the weight of index i of the tables of tuple class t
+	private double[][] weights;
+	private double material;
+	// the number of nodes of the board the weights were made for
+	private int boardSize;
+	private transient Layout layout;
+	private transient GameState initialState;
+
+	/**
+	 * The tuples of a board, computed from the node indices only, so all
+	 * boards of the same size share a layout.
+	 */
+	private static class Layout
+	{
+		// the nodes of every tuple, in the order of their digits
+		int[][] tuples;
+		// the class of every tuple, i.e. the table it uses
+		int[] tupleClass;
+		// the length of the tuples of every class
+		int[] classLength;
+		// for every node the tuples it is part of and its digit value there
+		int[][] nodeTuples;
+		int[][] nodePowers;
+		// the index with the digits 1 and 2 swapped, per tuple length
+		int[][] swap;
+
+		Layout(Board board)
+		{
+			int size = board.getNodes().size();
+			int[][] symmetries = board.getSymmetries();
+
+			List<int[]> candidates = new ArrayList<int[]>();
+			for (int i = 0; i < size; i++)
+			{
+				Node n = board.getNode(i);
+				for (Direction d : Direction.values())
+				{
+					Node second = n.getNeighbour(d);
+					Node third = (second == null) ? null : second.getNeighbour(d);
+					if (third != null)
+					{
+						candidates.add(new int[] { i, second.getIndex(), third.getIndex() });
+					}
+				}
+			}
+			for (int i = 0; i < size; i++)
+			{
+				Node n = board.getNode(i);
+				int[] rosette = new int[7];
+				rosette[0] = i;
+				int k = 1;
+				for (Direction d : Direction.values())
+				{
+					Node neighbour = n.getNeighbour(d);
+					if (neighbour == null)
+					{
+						break;
+					}
+					rosette[k++] = neighbour.getIndex();
+				}
+				if (k == 7)
+				{
+					candidates.add(rosette);
+				}
+			}
+
+			// every candidate whose nodes are not covered by an earlier class
+			// starts a new class, with all its images as tuples. An image
+			// with the nodes of another image in another order (a symmetry
+			// that maps the tuple onto itself) is a tuple of its own, so the
+			// tuples of a class are mapped onto each other by every symmetry.
+			Set<String> covered = new HashSet<String>();
+			List<int[]> tupleList = new ArrayList<int[]>();
+			List<Integer> classList = new ArrayList<Integer>();
+			List<Integer> lengthList = new ArrayList<Integer>();
+			for (int[] candidate : candidates)
+			{
+				if (covered.contains(key(candidate)))
+				{
+					continue;
+				}
+				int c = lengthList.size();
+				lengthList.add(candidate.length);
+				Set<String> images = new HashSet<String>();
+				for (int[] symmetry : symmetries)
+				{
+					int[] image = new int[candidate.length];
+					for (int j = 0; j < candidate.length; j++)
+					{
+						image[j] = symmetry[candidate[j]];
+					}
+					if (images.add(Arrays.toString(image)))
+					{
+						covered.add(key(image));
+						tupleList.add(image);
+						classList.add(c);
+					}
+				}
+			}
+
+			tuples = tupleList.toArray(new int[tupleList.size()][]);
+			tupleClass = new int[tuples.length];
+			for (int t = 0; t < tuples.length; t++)
+			{
+				tupleClass[t] = classList.get(t);
+			}
+			classLength = new int[lengthList.size()];
+			for (int c = 0; c < classLength.length; c++)
+			{
+				classLength[c] = lengthList.get(c);
+			}
+
+			List<List<int[]>> perNode = new ArrayList<List<int[]>>(size);
+			for (int i = 0; i < size; i++)
+			{
+				perNode.add(new ArrayList<int[]>());
+			}
+			for (int t = 0; t < tuples.length; t++)
+			{
+				int power = 1;
+				for (int node : tuples[t])
+				{
+					perNode.get(node).add(new int[] { t, power });
+					power *= 3;
+				}
+			}
+			nodeTuples = new int[size][];
+			nodePowers = new int[size][];
+			for (int i = 0; i < size; i++)
+			{
+				List<int[]> l = perNode.get(i);
+				nodeTuples[i] = new int[l.size()];
+				nodePowers[i] = new int[l.size()];
+				for (int j = 0; j < l.size(); j++)
+				{
+					nodeTuples[i][j] = l.get(j)[0];
+					nodePowers[i][j] = l.get(j)[1];
+				}
+			}
+
+			swap = new int[8][];
+			for (int length : classLength)
+			{
+				if (swap[length] == null)
+				{
+					swap[length] = swapTable(length);
+				}
+			}
+		}
+
+		/**
+		 * @return a key that is the same for tuples with the same nodes, in
+		 *         any order
+		 */
+		private static String key(int[] tuple)
+		{
+			int[] sorted = tuple.clone();
+			Arrays.sort(sorted);
+			return Arrays.toString(sorted);
+		}
+
+		private static int[] swapTable(int length)
+		{
+			int entries = pow3(length);
+			int[] table = new int[entries];
+			for (int index = 0; index < entries; index++)
+			{
+				int swapped = 0;
+				int rest = index;
+				for (int j = 0, power = 1; j < length; j++, power *= 3)
+				{
+					int digit = rest % 3;
+					rest /= 3;
+					swapped += (digit == 0 ? 0 : 3 - digit) * power;
+				}
+				table[index] = swapped;
+			}
+			return table;
+		}
+	}
+
+	/**
+	 * The indices of all tuples of one state. Digit 1 stands for a marble of
+	 * the first player, digit 2 for a marble of the second player.
+	 */
+	private static class TupleIndices implements StateAccumulator
+	{
+		private final Layout layout;
+		private final int[] index;
+
+		TupleIndices(Layout layout)
+		{
+			this.layout = layout;
+			this.index = new int[layout.tuples.length];
+		}
+
+		@Override
+		public void rebuild(GameState state)
+		{
+			Arrays.fill(index, 0);
+			for (Node node : state.getBoard().getNodes())
+			{
+				update(state, node, 1);
+			}
+		}
+
+		@Override
+		public void update(GameState state, Node node, int sign)
+		{
+			Player owner = state.getMarbleOwner(node);
+			if (owner == null)
+			{
+				return;
+			}
+			int digit = sign * (state.getPlayers().indexOf(owner) + 1);
+			int[] tuples = layout.nodeTuples[node.getIndex()];
+			int[] powers = layout.nodePowers[node.getIndex()];
+			for (int j = 0; j < tuples.length; j++)
+			{
+				index[tuples[j]] += digit * powers[j];
+			}
+		}
+
+		@Override
+		public StateAccumulator copy()
+		{
+			TupleIndices copy = new TupleIndices(layout);
+			copyInto(copy);
+			return copy;
+		}
+
+		@Override
+		public void copyInto(StateAccumulator target)
+		{
+			System.arraycopy(index, 0, ((TupleIndices) target).index, 0, index.length);
+		}
+	}
+
+	/**
+	 * Creates an evaluator with all weights zero for boards like the given
+	 * one.
+	 */
+	public NTupleEvaluator(Board board)
+	{
+		layout = new Layout(board);
+		boardSize = board.getNodes().size();
+		weights = new double[layout.classLength.length][];
+		for (int c = 0; c < weights.length; c++)
+		{
+			weights[c] = new double[pow3(layout.classLength[c])];
+		}
+	}
+
+	private NTupleEvaluator(double[][] weights, double material, int boardSize)
+	{
+		this.weights = weights;
+		this.material = material;
+		this.boardSize = boardSize;
+	}
+
+	@Override
+	public void setInitialState(SearchState state)
+	{
+		initialState = (GameState) state;
+		getIndices(initialState);
+	}
+
+	@Override
+	public Double eval(SearchState state)
+	{
+		return value((GameState) state, initialState.getCurrentPlayer());
+	}
+
+	/**
+	 * @return the value of the state for the given player
+	 */
+	public double value(GameState s, Player perspective)
+	{
+		Layout l = getLayout(s.getBoard());
+		int[] index = getIndices(s).index;
+		boolean swapped = s.getPlayers().indexOf(perspective) != 0;
+		double eval = 0;
+		for (int t = 0; t < index.length; t++)
+		{
+			int c = l.tupleClass[t];
+			int i = swapped ? l.swap[l.classLength[c]][index[t]] : index[t];
+			eval += weights[c][i];
+		}
+		return eval + material * materialDifference(s, perspective);
+	}
+
+	/**
+	 * Moves the value of the state for the given player towards the target by
+	 * one gradient step on the squared error. All tuples share the step, so
+	 * the rate does not depend on the number of tuples.
+	 */
+	public void learn(GameState s, Player perspective, double target, double rate)
+	{
+		Layout l = getLayout(s.getBoard());
+		int[] index = getIndices(s).index;
+		boolean swapped = s.getPlayers().indexOf(perspective) != 0;
+		double step = rate * (target - value(s, perspective));
+		double tupleStep = step / index.length;
+		for (int t = 0; t < index.length; t++)
+		{
+			int c = l.tupleClass[t];
+			int i = swapped ? l.swap[l.classLength[c]][index[t]] : index[t];
+			weights[c][i] += tupleStep;
+		}
+		// the difference is at most 6 marbles
+		material += step * materialDifference(s, perspective) / 6.0;
+	}
+
+	/**
+	 * Learns from the positions of one finished game: every position is
+	 * valued 1 for the winner and -1 for the loser, from the point of view of
+	 * the player to move. Positions of a game without winner are valued 0.
+	 */
+	public void learnGame(List<GameState> positions, Player winner, double rate)
+	{
+		for (GameState s : positions)
+		{
+			Player p = s.getCurrentPlayer();
+			double target = (winner == null) ? 0 : (winner == p ? 1 : -1);
+			learn(s, p, target, rate);
+		}
+	}
+
+	private int materialDifference(GameState s, Player perspective)
+	{
+		Player opponent = s.getPlayers().get((s.getPlayers().indexOf(perspective) + 1) % 2);
+		return s.getMarblesRemoved().get(opponent) - s.getMarblesRemoved().get(perspective);
+	}
+
+	private TupleIndices getIndices(GameState s)
+	{
+		TupleIndices indices = (TupleIndices) s.getAccumulator(this);
+		if (indices == null)
+		{
+			indices = new TupleIndices(getLayout(s.getBoard()));
+			s.putAccumulator(this, indices);
+		}
+		return indices;
+	}
+
+	private Layout getLayout(Board board)
+	{
+		Layout l = layout;
+		if (l == null)
+		{
+			if (board.getNodes().size() != boardSize)
+			{
+				throw new RuntimeException("weights are for a board with " + boardSize + " nodes");
+			}
+			l = new Layout(board);
+			if (l.classLength.length != weights.length)
+			{
+				throw new RuntimeException("weights do not match the tuples of the board");
+			}
+			layout = l;
+		}
+		return l;
+	}
+
+	/**
+	 * @return the number of tuples on the board
+	 */
+	public int getTupleCount()
+	{
+		return layout == null ? 0 : layout.tuples.length;
+	}
+
+	public void save(File file) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try
+		{
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(boardSize);
+			out.writeDouble(material);
+			out.writeInt(weights.length);
+			for (double[] table : weights)
+			{
+				out.writeInt(table.length);
+				for (double w : table)
+				{
+					out.writeDouble(w);
+				}
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	public static NTupleEvaluator load(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			if (in.readInt() != FILE_MAGIC)
+			{
+				throw new IOException(file + " is not an n-tuple weight file");
+			}
+			int boardSize = in.readInt();
+			double material = in.readDouble();
+			double[][] weights = new double[in.readInt()][];
+			for (int c = 0; c < weights.length; c++)
+			{
+				weights[c] = new double[in.readInt()];
+				for (int i = 0; i < weights[c].length; i++)
+				{
+					weights[c][i] = in.readDouble();
+				}
+			}
+			return new NTupleEvaluator(weights, material, boardSize);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	private static int pow3(int n)
+	{
+		int p = 1;
+		for (int i = 0; i < n; i++)
+		{
+			p *= 3;
+		}
+		return p;
+	}
+}
@@ -0,0 +1,335 @@
+package abalone.ai.evaluation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.def.SearchState;
+import abalone.gamestate.GameState;
+import abalone.gamestate.StateAccumulator;
+import abalone.model.Node;
+import abalone.model.Player;
+
+/**
+ * A small neural network evaluator in the style of NNUE. The input is a one
+ * hot encoding of the board per node and owner (two inputs per node: an own
+ * marble, an opponent marble). The first layer is kept in an accumulator per
+ * point of view, which is attached to the states and updated incrementally
+ * while marbles move, so only one column of the first layer is added or
+ * subtracted per changed node. The first layer works on 16 bit integers; the
+ * clipped activations of both points of view (the player to evaluate for
+ * first) go through a float hidden layer to the output.
+ *
+ * The weights are read from a binary file (big endian, see load()).
+ */
+public class NeuralEvaluator implements AbaloneEvaluator
+{
+	private static final int FILE_MAGIC = 0x4E4E5545; // "NNUE"
+	private static final int FILE_VERSION = 1;
+	// the activations of the first layer are clipped to [0, ONE]
+	private static final int ONE = 127;
+
+	private final int inputs, hidden, hidden2;
+	// first layer, column per input
+	private final short[] weights1;
+	private final short[] bias1;
+	// second layer, row per neuron over the 2 * hidden activations
+	private final float[] weights2;
+	private final float[] bias2;
+	private final float[] weights3;
+	private final float bias3;
+
+	private GameState initialState;
+	private final ThreadLocal<float[]> activations = new ThreadLocal<float[]>()
+	{
+		@Override
+		protected float[] initialValue()
+		{
+			return new float[2 * hidden];
+		}
+	};
+
+	/**
+	 * The first layer for both points of view: the sums of the columns of all
+	 * active inputs, starting from the bias.
+	 */
+	private class Accumulator implements StateAccumulator
+	{
+		// sums[p * hidden + j] is neuron j from the point of view of player p
+		private final short[] sums = new short[2 * hidden];
+
+		@Override
+		public void rebuild(GameState state)
+		{
+			System.arraycopy(bias1, 0, sums, 0, hidden);
+			System.arraycopy(bias1, 0, sums, hidden, hidden);
+			for (Node node : state.getBoard().getNodes())
+			{
+				update(state, node, 1);
+			}
+		}
+
+		@Override
+		public void update(GameState state, Node node, int sign)
+		{
+			Player owner = state.getMarbleOwner(node);
+			if (owner == null)
+			{
+				return;
+			}
+			int o = state.getPlayers().indexOf(owner);
+			for (int p = 0; p < 2; p++)
+			{
+				int input = 2 * node.getIndex() + (o == p ? 0 : 1);
+				int column = input * hidden;
+				int offset = p * hidden;
+				if (sign > 0)
+				{
+					for (int j = 0; j < hidden; j++)
+					{
+						sums[offset + j] += weights1[column + j];
+					}
+				}
+				else
+				{
+					for (int j = 0; j < hidden; j++)
+					{
+						sums[offset + j] -= weights1[column + j];
+					}
+				}
+			}
+		}
+
+		@Override
+		public StateAccumulator copy()
+		{
+			Accumulator copy = new Accumulator();
+			copyInto(copy);
+			return copy;
+		}
+
+		@Override
+		public void copyInto(StateAccumulator target)
+		{
+			System.arraycopy(sums, 0, ((Accumulator) target).sums, 0, sums.length);
+		}
+	}
+
+	private NeuralEvaluator(int inputs, int hidden, int hidden2)
+	{
+		this.inputs = inputs;
+		this.hidden = hidden;
+		this.hidden2 = hidden2;
+		weights1 = new short[inputs * hidden];
+		bias1 = new short[hidden];
+		weights2 = new float[hidden2 * 2 * hidden];
+		bias2 = new float[hidden2];
+		weights3 = new float[hidden2];
+		bias3 = 0;
+	}
+
+	private NeuralEvaluator(int inputs, int hidden, int hidden2, DataInputStream in) throws IOException
+	{
+		this.inputs = inputs;
+		this.hidden = hidden;
+		this.hidden2 = hidden2;
+		weights1 = readShorts(in, inputs * hidden);
+		bias1 = readShorts(in, hidden);
+		weights2 = readFloats(in, hidden2 * 2 * hidden);
+		bias2 = readFloats(in, hidden2);
+		weights3 = readFloats(in, hidden2);
+		bias3 = in.readFloat();
+	}
+
+	/**
+	 * Reads a network from a file with the layout
+	 * <pre>
+	 * int magic "NNUE", int version, int inputs, int hidden, int hidden2,
+	 * short[inputs * hidden] first layer (column per input), short[hidden] bias,
+	 * float[hidden2 * 2 * hidden] second layer (row per neuron), float[hidden2] bias,
+	 * float[hidden2] output layer, float bias
+	 * </pre>
+	 * Input 2 * i is an own marble on the node with index i, input 2 * i + 1
+	 * an opponent marble.
+	 */
+	public static NeuralEvaluator load(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION)
+			{
+				throw new IOException(file + " is not a network file of version " + FILE_VERSION);
+			}
+			int inputs = in.readInt();
+			int hidden = in.readInt();
+			int hidden2 = in.readInt();
+			return new NeuralEvaluator(inputs, hidden, hidden2, in);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	public void save(File file) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try
+		{
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeInt(inputs);
+			out.writeInt(hidden);
+			out.writeInt(hidden2);
+			for (short w : weights1)
+			{
+				out.writeShort(w);
+			}
+			for (short w : bias1)
+			{
+				out.writeShort(w);
+			}
+			for (float[] layer : new float[][] { weights2, bias2, weights3 })
+			{
+				for (float w : layer)
+				{
+					out.writeFloat(w);
+				}
+			}
+			out.writeFloat(bias3);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Creates a network with random weights, e.g. for benchmarks or as the
+	 * start of a training run. The first layer weights are small enough that
+	 * the 16 bit sums cannot overflow.
+	 */
+	public static NeuralEvaluator random(int nodes, int hidden, int hidden2, long seed)
+	{
+		NeuralEvaluator n = new NeuralEvaluator(2 * nodes, hidden, hidden2);
+		Random r = new Random(seed);
+		for (int i = 0; i < n.weights1.length; i++)
+		{
+			n.weights1[i] = (short) (r.nextInt(33) - 16);
+		}
+		for (int i = 0; i < n.weights2.length; i++)
+		{
+			n.weights2[i] = (float) (r.nextGaussian() / Math.sqrt(2 * hidden));
+		}
+		for (int i = 0; i < n.weights3.length; i++)
+		{
+			n.weights3[i] = (float) (r.nextGaussian() / Math.sqrt(hidden2));
+		}
+		return n;
+	}
+
+	@Override
+	public void setInitialState(SearchState state)
+	{
+		initialState = (GameState) state;
+		if (2 * initialState.getBoard().getNodes().size() != inputs)
+		{
+			throw new RuntimeException("the network has " + inputs + " inputs, the board has "
+					+ initialState.getBoard().getNodes().size() + " nodes");
+		}
+		getAccumulator(initialState);
+	}
+
+	@Override
+	public Double eval(SearchState state)
+	{
+		return value((GameState) state, initialState.getCurrentPlayer());
+	}
+
+	/**
+	 * @return the output of the network for the state from the point of view
+	 *         of the given player
+	 */
+	public double value(GameState s, Player perspective)
+	{
+		short[] sums = getAccumulator(s).sums;
+		float[] a = activations.get();
+		int own = s.getPlayers().indexOf(perspective) * hidden;
+		int opponent = hidden - own;
+		for (int j = 0; j < hidden; j++)
+		{
+			a[j] = clip(sums[own + j]);
+			a[hidden + j] = clip(sums[opponent + j]);
+		}
+
+		float out = bias3;
+		int width = 2 * hidden;
+		for (int k = 0; k < hidden2; k++)
+		{
+			float z = bias2[k];
+			int row = k * width;
+			for (int j = 0; j < width; j++)
+			{
+				z += weights2[row + j] * a[j];
+			}
+			if (z > 0)
+			{
+				out += weights3[k] * z;
+			}
+		}
+		return out;
+	}
+
+	private static float clip(short sum)
+	{
+		if (sum <= 0)
+		{
+			return 0;
+		}
+		return (sum >= ONE ? ONE : sum) * (1f / ONE);
+	}
+
+	private Accumulator getAccumulator(GameState s)
+	{
+		Accumulator a = (Accumulator) s.getAccumulator(this);
+		if (a == null)
+		{
+			a = new Accumulator();
+			s.putAccumulator(this, a);
+		}
+		return a;
+	}
+
+	private static short[] readShorts(DataInputStream in, int n) throws IOException
+	{
+		short[] a = new short[n];
+		for (int i = 0; i < n; i++)
+		{
+			a[i] = in.readShort();
+		}
+		return a;
+	}
+
+	private static float[] readFloats(DataInputStream in, int n) throws IOException
+	{
+		float[] a = new float[n];
+		for (int i = 0; i < n; i++)
+		{
+			a[i] = in.readFloat();
+		}
+		return a;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "NeuralEvaluator " + inputs + "x" + hidden + "x2-" + hidden2 + "-1";
+	}
+}
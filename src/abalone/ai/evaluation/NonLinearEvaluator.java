@@ -7,25 +7,21 @@
  */
 package abalone.ai.evaluation;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 
 import nl.maastrichtuniversity.dke.libreason.def.SearchState;
-import nl.maastrichtuniversity.dke.libreason.def.heuristic.Evaluator;
 import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
 import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
 import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
 import abalone.ai.machinelearning.Weight;
 import abalone.gamestate.GameState;
-import abalone.model.Direction;
-import abalone.model.Node;
-import abalone.model.Player;
 
-public class NonLinearEvaluator implements GeneticIndividual, Evaluator<Double>
+public class NonLinearEvaluator implements GeneticIndividual, FeatureEvaluator, Serializable
 {
+	private static final long serialVersionUID = 6307480923474542095L;
 	private double fitness;
 	private Genotype phenotype;
 	private GameState initialState;
@@ -44,7 +40,7 @@ public class NonLinearEvaluator implements GeneticIndividual, Evaluator<Double>
 	// Variables for scaling the functions.
 	private List<Integer> max = new ArrayList<Integer>(6);
 	private List<Integer> min = new ArrayList<Integer>(6);
-	private List<Integer> functionResults;
+	private static final int EXPONENTIAL_CONSTANT = 1;
 
 
 	private static Genotype generatePhenotype()
@@ -92,62 +88,12 @@ public class NonLinearEvaluator implements GeneticIndividual, Evaluator<Double>
 
 	public Double eval(SearchState state)
 	{
-
 		// Checks to see if the searchstate given is an instance of a gamestate.
 		if (state instanceof GameState)
 		{
-			// Cast searchstate to gamestate.
-			GameState s = (GameState) state;
-			// Get the current player.
-			Player currentPlayer = initialState.getCurrentPlayer();
-			// Get the opponent player.
-			Player opponentPlayer = initialState.getOpponentPlayer();
-			// Get current player's marbles.
-			Set<Node> currentPlayerMarbles = s.getMarbles(currentPlayer);
-			// Get opponent player's marbles.
-			Set<Node> opponentPlayerMarbles = s.getMarbles(opponentPlayer);
-			// Get the lost marbles per player.
-			Map<Player, Integer> lostMarbles = s.getMarblesRemoved();
-                        final int EXPONENTIAL_CONSTANT = 1;
-
-			// Calculations for current player.
-			int currentPlayerManhattanDistanceCount = 0;
-			int currentPlayerTeammatesCount = 0;
-			for (Node node : currentPlayerMarbles){
-                            currentPlayerManhattanDistanceCount += node.getManhDist();
-                            for (Direction d : Direction.UPPER_LEFT){
-                                if (s.getMarbleOwner(node.getNeighbour(d)) == s.getMarbleOwner(node)){
-                                    currentPlayerTeammatesCount++;
-                                }
-                            }
-			}
-
-			// Calculations for opponent player.
-			int opponentPlayerManhattanDistanceCount = 0;
-			int opponentPlayerTeammatesCount = 0;
-			for (Node node : opponentPlayerMarbles){
-                            opponentPlayerManhattanDistanceCount += node.getManhDist();
-                            for (Direction d : Direction.UPPER_LEFT){
-                                if (s.getMarbleOwner(node.getNeighbour(d)) == s.getMarbleOwner(node)){
-                                    opponentPlayerTeammatesCount++;
-                                }
-                            }
-                        }
-                        
-			// Calculation of individual functions
-			functionResults = new ArrayList<Integer>();
-                        functionResults.add(0, (int) ((Math.pow(opponentPlayerManhattanDistanceCount, (lostMarbles.get(opponentPlayer) + EXPONENTIAL_CONSTANT))) - (Math.pow(currentPlayerManhattanDistanceCount, (lostMarbles.get(currentPlayer) + EXPONENTIAL_CONSTANT)))));
-                        functionResults.add(1, currentPlayerTeammatesCount - opponentPlayerTeammatesCount);
-
-			// Evaluation.
-			double eval = 0;
-
-			for (int i = 0; i < functionResults.size(); i++)
-			{
-				double weight = (Double) phenotype.get(i).getValue();
-				eval += weight * (functionResults.get(i) / ((double) (max.get(i) - min.get(i))));
-			}
-			return eval;
+			int[] features = FeatureExtractor.vector();
+			FeatureExtractor.extract((GameState) state, initialState.getCurrentPlayer(), features);
+			return combine(features);
 		}
 		else
 		{
@@ -155,9 +101,47 @@ public class NonLinearEvaluator implements GeneticIndividual, Evaluator<Double>
 		}
 	}
 
+	@Override
+	public double combine(int[] features)
+	{
+		double eval = 0;
+		for (int i = 0; i < 2; i++)
+		{
+			double weight = (Double) phenotype.get(i).getValue();
+			eval += weight * (function(features, i) / ((double) (max.get(i) - min.get(i))));
+		}
+		return eval;
+	}
+
+	/**
+	 * Computes function i of the evaluation from the features of a state.
+	 */
+	private static int function(int[] f, int i)
+	{
+		switch (i)
+		{
+			case 0:
+				// the manhattan distances weigh more as more marbles are lost
+				return (int) (Math.pow(f[FeatureExtractor.OPPONENT_MANHATTAN], f[FeatureExtractor.OPPONENT_LOST] + EXPONENTIAL_CONSTANT)
+						- Math.pow(f[FeatureExtractor.OWN_MANHATTAN], f[FeatureExtractor.OWN_LOST] + EXPONENTIAL_CONSTANT));
+			default:
+				return f[FeatureExtractor.OWN_TEAMMATES] - f[FeatureExtractor.OPPONENT_TEAMMATES];
+		}
+	}
+
+	/**
+	 * @return the function results of the last evaluation done by the
+	 *         calling thread
+	 */
 	public List<Integer> getFunctionResults()
 	{
-		return functionResults;
+		int[] features = FeatureExtractor.vector();
+		List<Integer> results = new ArrayList<Integer>(2);
+		for (int i = 0; i < 2; i++)
+		{
+			results.add(function(features, i));
+		}
+		return results;
 	}
 
 	public double getFitness()
@@ -10,22 +10,16 @@ package abalone.ai.evaluation;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 
 import nl.maastrichtuniversity.dke.libreason.def.SearchState;
-import nl.maastrichtuniversity.dke.libreason.def.heuristic.Evaluator;
 import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
 import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
 import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
 import abalone.ai.machinelearning.Weight;
 import abalone.gamestate.GameState;
-import abalone.model.Direction;
-import abalone.model.Node;
-import abalone.model.Player;
 
-public class QuickerLinearEvaluator implements GeneticIndividual, Evaluator<Double>, Serializable
+public class QuickerLinearEvaluator implements GeneticIndividual, FeatureEvaluator, Serializable
 {
 	private static final long serialVersionUID = 1875360571407017164L;
 	private double fitness;
@@ -46,7 +40,6 @@ public class QuickerLinearEvaluator implements GeneticIndividual, Evaluator<Doub
 	// Variables for scaling the functions.
 	private List<Integer> max = new ArrayList<Integer>(6);
 	private List<Integer> min = new ArrayList<Integer>(6);
-	private List<Integer> functionResults;
 
 
 	private static Genotype generatePhenotype()
@@ -97,51 +90,12 @@ public class QuickerLinearEvaluator implements GeneticIndividual, Evaluator<Doub
 
 	public Double eval(SearchState state)
 	{
-
 		// Checks to see if the searchstate given is an instance of a gamestate.
 		if (state instanceof GameState)
 		{
-			// Cast searchstate to gamestate.
-			GameState s = (GameState) state;
-			// Get the current player.
-			Player currentPlayer = initialState.getCurrentPlayer();
-			// Get the opponent player.
-			Player opponentPlayer = initialState.getOpponentPlayer();
-			// Get current player's marbles.
-			Set<Node> currentPlayerMarbles = s.getMarbles(currentPlayer);
-			// Get opponent player's marbles.
-			Set<Node> opponentPlayerMarbles = s.getMarbles(opponentPlayer);
-			// Get the lost marbles per player.
-			Map<Player, Integer> lostMarbles = s.getMarblesRemoved();
-
-			// Calculations for current player.
-			int currentPlayerManhattanDistanceCount = 0;
-			for (Node node : currentPlayerMarbles)
-			{
-				currentPlayerManhattanDistanceCount += node.getManhDist();
-			}
-
-			// Calculations for opponent player.
-			int opponentPlayerManhattanDistanceCount = 0;
-			for (Node node : opponentPlayerMarbles)
-			{
-				opponentPlayerManhattanDistanceCount += node.getManhDist();
-			}
-			// Calculation of individual functions
-			functionResults = new ArrayList<Integer>();
-			functionResults.add(0,opponentPlayerManhattanDistanceCount - currentPlayerManhattanDistanceCount);
-			functionResults.add(1,lostMarbles.get(opponentPlayer));
-			functionResults.add(2,lostMarbles.get(currentPlayer));
-
-			// Evaluation.
-			double eval = 0;
-
-			for (int i = 0; i < functionResults.size(); i++)
-			{
-				double weight = (Double) phenotype.get(i).getValue();
-				eval += weight * (functionResults.get(i) / ((double) (max.get(i) - min.get(i))));
-			}
-			return eval;
+			int[] features = FeatureExtractor.vector();
+			FeatureExtractor.extract((GameState) state, initialState.getCurrentPlayer(), features);
+			return combine(features);
 		}
 		else
 		{
@@ -149,9 +103,47 @@ public class QuickerLinearEvaluator implements GeneticIndividual, Evaluator<Doub
 		}
 	}
 
+	@Override
+	public double combine(int[] features)
+	{
+		double eval = 0;
+		for (int i = 0; i < 3; i++)
+		{
+			double weight = (Double) phenotype.get(i).getValue();
+			eval += weight * (function(features, i) / ((double) (max.get(i) - min.get(i))));
+		}
+		return eval;
+	}
+
+	/**
+	 * Computes function i of the evaluation from the features of a state.
+	 */
+	private static int function(int[] f, int i)
+	{
+		switch (i)
+		{
+			case 0:
+				return f[FeatureExtractor.OPPONENT_MANHATTAN] - f[FeatureExtractor.OWN_MANHATTAN];
+			case 1:
+				return f[FeatureExtractor.OPPONENT_LOST];
+			default:
+				return f[FeatureExtractor.OWN_LOST];
+		}
+	}
+
+	/**
+	 * @return the function results of the last evaluation done by the
+	 *         calling thread
+	 */
 	public List<Integer> getFunctionResults()
 	{
-		return functionResults;
+		int[] features = FeatureExtractor.vector();
+		List<Integer> results = new ArrayList<Integer>(3);
+		for (int i = 0; i < 3; i++)
+		{
+			results.add(function(features, i));
+		}
+		return results;
 	}
 
 	public double getFitness()
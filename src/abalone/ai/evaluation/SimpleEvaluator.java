@@ -5,18 +5,26 @@
 package abalone.ai.evaluation;
 
 import nl.maastrichtuniversity.dke.libreason.def.SearchState;
-import nl.maastrichtuniversity.dke.libreason.def.heuristic.Evaluator;
 import abalone.gamestate.GameState;
 
-public class SimpleEvaluator implements Evaluator<Double>
+public class SimpleEvaluator implements AbaloneEvaluator
 {
 	private GameState initialState;
 	
+	public SimpleEvaluator()
+	{
+	}
+
 	public SimpleEvaluator(GameState initialState)
 	{
 		this.initialState = initialState;
 	}
 
+	public void setInitialState(SearchState state)
+	{
+		this.initialState = (GameState) state;
+	}
+
 	@Override
 	public Double eval(SearchState state)
 	{
@@ -7,25 +7,21 @@
  */
 package abalone.ai.evaluation;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 
 import nl.maastrichtuniversity.dke.libreason.def.SearchState;
-import nl.maastrichtuniversity.dke.libreason.def.heuristic.Evaluator;
 import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
 import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
 import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
 import abalone.ai.machinelearning.Weight;
 import abalone.gamestate.GameState;
-import abalone.model.Direction;
-import abalone.model.Node;
-import abalone.model.Player;
 
-public class SplitLinearEvaluator implements GeneticIndividual, Evaluator<Double>
+public class SplitLinearEvaluator implements GeneticIndividual, FeatureEvaluator, Serializable
 {
+	private static final long serialVersionUID = -2316089563011236557L;
 	private double fitness;
 	private Genotype phenotype;
 	private GameState initialState;
@@ -43,7 +39,11 @@ public class SplitLinearEvaluator implements GeneticIndividual, Evaluator<Double
 
 	// Variables for scaling the functions.
 	private List<Integer> max = new ArrayList<Integer>(6);
-	private List<Integer> functionResults;
+	// The functions are the features themselves, in this order.
+	private static final int[] functions = { FeatureExtractor.OPPONENT_MANHATTAN, FeatureExtractor.OWN_MANHATTAN,
+			FeatureExtractor.OWN_TEAMMATES, FeatureExtractor.OPPONENT_TEAMMATES, FeatureExtractor.OWN_BREAK_GROUP,
+			FeatureExtractor.OPPONENT_BREAK_GROUP, FeatureExtractor.OWN_STRENGTHEN_GROUP,
+			FeatureExtractor.OPPONENT_STRENGTHEN_GROUP, FeatureExtractor.OPPONENT_LOST, FeatureExtractor.OWN_LOST };
 
 	
 	private static Genotype generatePhenotype()
@@ -86,94 +86,12 @@ public class SplitLinearEvaluator implements GeneticIndividual, Evaluator<Double
 
 	public Double eval(SearchState state)
 	{
-
 		// Checks to see if the searchstate given is an instance of a gamestate.
 		if (state instanceof GameState)
 		{
-			// Cast searchstate to gamestate.
-			GameState s = (GameState) state;
-			// Get the current player.
-			Player currentPlayer = initialState.getCurrentPlayer();
-			// Get the opponent player.
-			Player opponentPlayer = initialState.getOpponentPlayer();
-			// Get current player's marbles.
-			Set<Node> currentPlayerMarbles = s.getMarbles(currentPlayer);
-			// Get opponent player's marbles.
-			Set<Node> opponentPlayerMarbles = s.getMarbles(opponentPlayer);
-			// Get the lost marbles per player.
-			Map<Player, Integer> lostMarbles = s.getMarblesRemoved();
-
-			// Calculations for current player.
-			int currentPlayerManhattanDistanceCount = 0;
-			int currentPlayerTeammatesCount = 0;
-			int currentPlayerBreakStrongGroupStrategyCount = 0;
-			int currentPlayerStrengthenGroupStrategyCount = 0;
-			for (Node node : currentPlayerMarbles)
-			{
-				currentPlayerManhattanDistanceCount += node.getManhDist();
-				for (Direction d : Direction.UPPER_LEFT)
-				{
-					if (s.getMarbleOwner(node.getNeighbour(d)) == s.getMarbleOwner(node))
-					{
-						currentPlayerTeammatesCount++;
-					}
-					if (s.getMarbleOwner(node.getNeighbour(d)) == opponentPlayer && s.getMarbleOwner(node.getNeighbour(d.getOpposite())) == opponentPlayer)
-					{
-						currentPlayerBreakStrongGroupStrategyCount++;
-					}
-					if (s.getMarbleOwner(node.getNeighbour(d)) == opponentPlayer && s.getMarbleOwner(node.getNeighbour(d.getOpposite())) == currentPlayer)
-					{
-						currentPlayerStrengthenGroupStrategyCount++;
-					}
-				}
-			}
-
-			// Calculations for opponent player.
-			int opponentPlayerManhattanDistanceCount = 0;
-			int opponentPlayerTeammatesCount = 0;
-			int opponentPlayerBreakStrongGroupStrategyCount = 0;
-			int opponentPlayerStrengthenGroupStrategyCount = 0;
-			for (Node node : opponentPlayerMarbles)
-			{
-				opponentPlayerManhattanDistanceCount += node.getManhDist();
-				for (Direction d : Direction.UPPER_LEFT)
-				{
-					if (s.getMarbleOwner(node.getNeighbour(d)) == s.getMarbleOwner(node))
-					{
-						opponentPlayerTeammatesCount++;
-					}
-					if (s.getMarbleOwner(node.getNeighbour(d)) == currentPlayer && s.getMarbleOwner(node.getNeighbour(d.getOpposite())) == currentPlayer)
-					{
-						opponentPlayerBreakStrongGroupStrategyCount++;
-					}
-					if (s.getMarbleOwner(node.getNeighbour(d)) == currentPlayer && s.getMarbleOwner(node.getNeighbour(d.getOpposite())) == opponentPlayer)
-					{
-						opponentPlayerStrengthenGroupStrategyCount++;
-					}
-				}
-			}
-			// Calculation of individual functions
-			functionResults = new ArrayList<Integer>();
-			functionResults.add(0,opponentPlayerManhattanDistanceCount);
-			functionResults.add(1,currentPlayerManhattanDistanceCount);
-			functionResults.add(2,currentPlayerTeammatesCount);
-			functionResults.add(3,opponentPlayerTeammatesCount);
-			functionResults.add(4,currentPlayerBreakStrongGroupStrategyCount);
-			functionResults.add(5,opponentPlayerBreakStrongGroupStrategyCount);
-			functionResults.add(6,currentPlayerStrengthenGroupStrategyCount);
-			functionResults.add(7,opponentPlayerStrengthenGroupStrategyCount);
-			functionResults.add(8,lostMarbles.get(opponentPlayer));
-			functionResults.add(9,lostMarbles.get(currentPlayer));
-
-			// Evaluation.
-			double eval = 0;
-
-			for (int i = 0; i < functionResults.size(); i++)
-			{
-				double weight = (Double) phenotype.get(i).getValue();				
-				eval += weight * (functionResults.get(i) / ((double) max.get(i)));
-			}
-			return eval;
+			int[] features = FeatureExtractor.vector();
+			FeatureExtractor.extract((GameState) state, initialState.getCurrentPlayer(), features);
+			return combine(features);
 		}
 		else
 		{
@@ -181,9 +99,31 @@ public class SplitLinearEvaluator implements GeneticIndividual, Evaluator<Double
 		}
 	}
 
+	@Override
+	public double combine(int[] features)
+	{
+		double eval = 0;
+		for (int i = 0; i < functions.length; i++)
+		{
+			double weight = (Double) phenotype.get(i).getValue();
+			eval += weight * (features[functions[i]] / ((double) max.get(i)));
+		}
+		return eval;
+	}
+
+	/**
+	 * @return the function results of the last evaluation done by the
+	 *         calling thread
+	 */
 	public List<Integer> getFunctionResults()
 	{
-		return functionResults;
+		int[] features = FeatureExtractor.vector();
+		List<Integer> results = new ArrayList<Integer>(functions.length);
+		for (int f : functions)
+		{
+			results.add(features[f]);
+		}
+		return results;
 	}
 	
 	public double getFitness()
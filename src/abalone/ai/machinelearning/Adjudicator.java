@@ -0,0 +1,232 @@
+package abalone.ai.machinelearning;
+
+import java.util.List;
+import java.util.Map;
+
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.gamestate.GameState;
+import abalone.model.Player;
+
+/**
+ * Ends tournament matches before the ply limit when their result is clear:
+ * <ul>
+ * <li>a player resigns when the evaluations of both players have agreed for
+ * a number of plies that it is behind by at least a threshold;</li>
+ * <li>a player wins when it has pushed a number of marbles more than its
+ * opponent;</li>
+ * <li>the match is stopped as a draw when no marble has been pushed for a
+ * number of plies.</li>
+ * </ul>
+ * The evaluations are taken from the point of view of the player to move, by
+ * its own evaluator, and divided by the largest value that evaluator can
+ * return, so the threshold is between 0 and 1 whatever the weights are. A
+ * rule with a setting of 0 is not applied.
+ *
+ * The settings are shared by all matches; every match keeps its own Game.
+ * Tournaments do not adjudicate unless an adjudicator is set; new
+ * Adjudicator() has settings that suit matches between trained weights.
+ */
+public class Adjudicator
+{
+	private double resignThreshold = 0.25;
+	private int resignPlies = 10;
+	private int materialMargin = 3;
+	private int drawPlies = 60;
+	private boolean log = false;
+
+	/**
+	 * @return an adjudicator that lets every match run to the end
+	 */
+	public static Adjudicator none()
+	{
+		Adjudicator adjudicator = new Adjudicator();
+		adjudicator.setResignPlies(0);
+		adjudicator.setMaterialMargin(0);
+		adjudicator.setDrawPlies(0);
+		return adjudicator;
+	}
+
+	/**
+	 * The evaluation, between 0 and 1, below which a player is behind
+	 */
+	public void setResignThreshold(double resignThreshold)
+	{
+		this.resignThreshold = resignThreshold;
+	}
+
+	/**
+	 * The number of plies in a row a player must be behind before it resigns
+	 */
+	public void setResignPlies(int resignPlies)
+	{
+		this.resignPlies = resignPlies;
+	}
+
+	/**
+	 * The number of marbles a player must have pushed more than its opponent
+	 * to win
+	 */
+	public void setMaterialMargin(int materialMargin)
+	{
+		this.materialMargin = materialMargin;
+	}
+
+	/**
+	 * The number of plies without a pushed marble after which a match is a
+	 * draw
+	 */
+	public void setDrawPlies(int drawPlies)
+	{
+		this.drawPlies = drawPlies;
+	}
+
+	/**
+	 * Whether every adjudication is printed with its reason, by default not
+	 */
+	public void setLog(boolean log)
+	{
+		this.log = log;
+	}
+
+	/**
+	 * @return whether any rule is applied
+	 */
+	public boolean isEnabled()
+	{
+		return resignPlies > 0 || materialMargin > 0 || drawPlies > 0;
+	}
+
+	/**
+	 * Starts to follow a match from the given state.
+	 */
+	public Game start(GameState state)
+	{
+		return new Game(state);
+	}
+
+	/**
+	 * The course of one match
+	 */
+	public class Game
+	{
+		private int plies;
+		private int removed;
+		private int quietPlies;
+		private Player behind;
+		private int behindPlies;
+		private boolean adjudicated;
+		private Player winner;
+		private String reason;
+
+		private Game(GameState state)
+		{
+			removed = removed(state);
+		}
+
+		/**
+		 * Checks the state after a move. The state must not be won yet. Once a
+		 * match is adjudicated as a draw, only the rules that give it to a
+		 * player are checked, so a match that continues (e.g. in overtime) is
+		 * not adjudicated as a draw again on every ply.
+		 *
+		 * @param evaluator
+		 *            the evaluator of the player to move
+		 * @return whether the match is adjudicated
+		 */
+		public boolean check(GameState state, LinearEvaluator evaluator)
+		{
+			plies++;
+			List<Player> players = state.getPlayers();
+			Map<Player, Integer> lost = state.getMarblesRemoved();
+			int lost1 = lost.get(players.get(0));
+			int lost2 = lost.get(players.get(1));
+
+			if (materialMargin > 0 && Math.abs(lost1 - lost2) >= materialMargin)
+			{
+				return adjudicate(state, players.get(lost1 < lost2 ? 0 : 1), "marbles lost " + lost1 + ":" + lost2);
+			}
+
+			if (resignPlies > 0)
+			{
+				Player mover = state.getCurrentPlayer();
+				evaluator.setInitialState(state);
+				double bound = evaluator.getBound();
+				double score = (bound > 0) ? evaluator.eval(state) / bound : 0;
+				Player loser = null;
+				if (score <= -resignThreshold)
+				{
+					loser = mover;
+				}
+				else if (score >= resignThreshold)
+				{
+					loser = state.getOpponentPlayer();
+				}
+				if (loser == null || loser != behind)
+				{
+					behindPlies = 0;
+				}
+				behind = loser;
+				if (loser != null && ++behindPlies >= resignPlies)
+				{
+					Player other = players.get(players.get(0) == loser ? 1 : 0);
+					return adjudicate(state, other, "player " + (players.indexOf(loser) + 1) + " behind for "
+							+ behindPlies + " plies");
+				}
+			}
+
+			int r = lost1 + lost2;
+			if (r != removed)
+			{
+				removed = r;
+				quietPlies = 0;
+			}
+			else if (drawPlies > 0 && !adjudicated && ++quietPlies >= drawPlies)
+			{
+				return adjudicate(state, null, "no marble pushed for " + quietPlies + " plies");
+			}
+			return false;
+		}
+
+		private boolean adjudicate(GameState state, Player winner, String reason)
+		{
+			this.adjudicated = true;
+			this.winner = winner;
+			this.reason = reason;
+			if (log)
+			{
+				System.out.println("adjudicated after " + plies + " plies: "
+						+ (winner == null ? "draw" : "player " + (state.getPlayers().indexOf(winner) + 1) + " wins")
+						+ " (" + reason + ")");
+			}
+			return true;
+		}
+
+		public boolean isAdjudicated()
+		{
+			return adjudicated;
+		}
+
+		/**
+		 * @return the player the match is given to, or null for a draw
+		 */
+		public Player getWinner()
+		{
+			return winner;
+		}
+
+		public String getReason()
+		{
+			return reason;
+		}
+	}
+
+	private static int removed(GameState state)
+	{
+		int removed = 0;
+		for (int r : state.getMarblesRemoved().values())
+		{
+			removed += r;
+		}
+		return removed;
+	}
+}
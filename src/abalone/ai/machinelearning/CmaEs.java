@@ -0,0 +1,437 @@
+package abalone.ai.machinelearning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.FitnessEvaluator;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import abalone.ai.evaluation.LinearEvaluator;
+
+/**
+ * Optimizes the weights of a LinearEvaluator with the covariance matrix
+ * adaptation evolution strategy (CMA-ES), as an alternative to the
+ * GeneticSearch. Every generation samples lambda weight vectors from a
+ * normal distribution, ranks them with a FitnessEvaluator (one of the
+ * tournaments, which plays the matches in parallel) and moves the mean, the
+ * step size and the covariance matrix of the distribution towards the best
+ * mu of them. Only the ranking of the samples is used, so the fitness of a
+ * tournament, which is relative to the other samples, is sufficient.
+ *
+ * A run stops when the distribution has become too small, when the
+ * covariance matrix is ill conditioned or after a number of generations. It
+ * is then restarted from a random mean with twice the population (IPOP), as
+ * long as evaluations are left. At the end the means of all runs play one
+ * tournament against each other and the winner is the result.
+ *
+ * The update follows N. Hansen, "The CMA Evolution Strategy: A Tutorial".
+ */
+public class CmaEs
+{
+	private final FitnessEvaluator fitness;
+	private final int n;
+	private double sigma0 = 0.3;
+	private int lambda0;
+	private int maxEvaluations = 2000;
+	private int maxGenerations = 100;
+	private double tolX = 1e-4;
+	private Random random = new Random();
+	private boolean verbose = false;
+
+	private int evaluations;
+	private final List<LinearEvaluator> results = new ArrayList<LinearEvaluator>();
+
+	/**
+	 * @param dimension
+	 *            the number of weights
+	 */
+	public CmaEs(FitnessEvaluator fitness, int dimension)
+	{
+		this.fitness = fitness;
+		this.n = dimension;
+		this.lambda0 = 4 + (int) (3 * Math.log(dimension));
+	}
+
+	/**
+	 * The initial step size of a run; the random means are drawn from [-1, 1]
+	 */
+	public void setSigma(double sigma)
+	{
+		this.sigma0 = sigma;
+	}
+
+	/**
+	 * The number of samples per generation of the first run
+	 */
+	public void setLambda(int lambda)
+	{
+		this.lambda0 = lambda;
+	}
+
+	/**
+	 * The number of samples over all runs after which no new generation is
+	 * started
+	 */
+	public void setMaxEvaluations(int maxEvaluations)
+	{
+		this.maxEvaluations = maxEvaluations;
+	}
+
+	/**
+	 * The number of generations after which a run is restarted
+	 */
+	public void setMaxGenerations(int maxGenerations)
+	{
+		this.maxGenerations = maxGenerations;
+	}
+
+	/**
+	 * The step size below which a run is restarted
+	 */
+	public void setTolX(double tolX)
+	{
+		this.tolX = tolX;
+	}
+
+	public void setRandom(Random random)
+	{
+		this.random = random;
+	}
+
+	public void setVerbose(boolean verbose)
+	{
+		this.verbose = verbose;
+	}
+
+	/**
+	 * @return the number of samples evaluated so far
+	 */
+	public int getEvaluations()
+	{
+		return evaluations;
+	}
+
+	/**
+	 * Runs and restarts until the evaluations are used up.
+	 *
+	 * @return the best of the final means of the runs
+	 * @throws IllegalArgumentException
+	 *             if the evaluations do not suffice for one generation
+	 */
+	public LinearEvaluator run() throws InterruptedException
+	{
+		if (maxEvaluations < lambda0)
+		{
+			// the result would be the random start of the first run
+			throw new IllegalArgumentException(maxEvaluations + " evaluations are fewer than the " + lambda0
+					+ " samples of one generation");
+		}
+		int lambda = lambda0;
+		while (evaluations + lambda <= maxEvaluations || results.isEmpty())
+		{
+			double[] start = new double[n];
+			for (int i = 0; i < n; i++)
+			{
+				start[i] = 2 * random.nextDouble() - 1;
+			}
+			results.add(createEvaluator(new Run(start, lambda).optimize()));
+			lambda *= 2;
+		}
+		if (results.size() == 1)
+		{
+			return results.get(0);
+		}
+		GeneticPopulation finals = new GeneticPopulation();
+		finals.addAll(results);
+		fitness.eval(finals);
+		return Collections.max(results);
+	}
+
+	private static LinearEvaluator createEvaluator(double[] x)
+	{
+		Genotype phenotype = new Genotype();
+		for (double w : x)
+		{
+			phenotype.add(new Weight(w));
+		}
+		return new LinearEvaluator(phenotype);
+	}
+
+	/**
+	 * One run of the strategy from a start point
+	 */
+	private class Run
+	{
+		private final int lambda, mu;
+		private final double[] weights;
+		private final double mueff, cc, cs, c1, cmu, damps, chiN;
+
+		private double[] mean;
+		private double sigma = sigma0;
+		private final double[] pc = new double[n], ps = new double[n];
+		private final double[][] c = new double[n][n];
+		// C = B diag(d^2) B^T
+		private final double[][] b = new double[n][n];
+		private final double[] d = new double[n];
+
+		Run(double[] start, int lambda)
+		{
+			this.mean = start.clone();
+			this.lambda = lambda;
+			this.mu = lambda / 2;
+			weights = new double[mu];
+			double sum = 0, sumSquares = 0;
+			for (int i = 0; i < mu; i++)
+			{
+				weights[i] = Math.log(mu + 0.5) - Math.log(i + 1);
+				sum += weights[i];
+			}
+			for (int i = 0; i < mu; i++)
+			{
+				weights[i] /= sum;
+				sumSquares += weights[i] * weights[i];
+			}
+			mueff = 1 / sumSquares;
+
+			cc = (4 + mueff / n) / (n + 4 + 2 * mueff / n);
+			cs = (mueff + 2) / (n + mueff + 5);
+			c1 = 2 / ((n + 1.3) * (n + 1.3) + mueff);
+			cmu = Math.min(1 - c1, 2 * (mueff - 2 + 1 / mueff) / ((n + 2) * (n + 2) + mueff));
+			damps = 1 + 2 * Math.max(0, Math.sqrt((mueff - 1) / (n + 1)) - 1) + cs;
+			chiN = Math.sqrt(n) * (1 - 1.0 / (4 * n) + 1.0 / (21 * n * n));
+
+			for (int i = 0; i < n; i++)
+			{
+				c[i][i] = 1;
+				b[i][i] = 1;
+				d[i] = 1;
+			}
+		}
+
+		/**
+		 * @return the final mean
+		 */
+		double[] optimize() throws InterruptedException
+		{
+			for (int generation = 1; generation <= maxGenerations && evaluations + lambda <= maxEvaluations; generation++)
+			{
+				// sample: x = m + sigma * B * (d .* z)
+				final double[][] x = new double[lambda][n];
+				final double[][] y = new double[lambda][n];
+				GeneticPopulation pop = new GeneticPopulation();
+				final List<GeneticIndividual> samples = new ArrayList<GeneticIndividual>();
+				for (int k = 0; k < lambda; k++)
+				{
+					double[] z = new double[n];
+					for (int i = 0; i < n; i++)
+					{
+						z[i] = d[i] * random.nextGaussian();
+					}
+					for (int i = 0; i < n; i++)
+					{
+						double s = 0;
+						for (int j = 0; j < n; j++)
+						{
+							s += b[i][j] * z[j];
+						}
+						y[k][i] = s;
+						x[k][i] = mean[i] + sigma * s;
+					}
+					LinearEvaluator sample = createEvaluator(x[k]);
+					pop.add(sample);
+					samples.add(sample);
+				}
+				fitness.eval(pop);
+				evaluations += lambda;
+
+				// rank by fitness, best first
+				Integer[] order = new Integer[lambda];
+				for (int k = 0; k < lambda; k++)
+				{
+					order[k] = k;
+				}
+				Arrays.sort(order, new Comparator<Integer>()
+				{
+					@Override
+					public int compare(Integer i, Integer j)
+					{
+						return Double.compare(samples.get(j).getFitness(), samples.get(i).getFitness());
+					}
+				});
+
+				update(y, order, generation);
+
+				if (verbose)
+				{
+					System.out.println("lambda " + lambda + ", generation " + generation + ": sigma " + sigma
+							+ ", best " + samples.get(order[0]) + ", mean " + Arrays.toString(mean));
+				}
+				if (converged())
+				{
+					break;
+				}
+			}
+			return mean;
+		}
+
+		private void update(double[][] y, Integer[] order, int generation)
+		{
+			// the weighted mean step of the best samples, in units of sigma
+			double[] step = new double[n];
+			for (int r = 0; r < mu; r++)
+			{
+				for (int i = 0; i < n; i++)
+				{
+					step[i] += weights[r] * y[order[r]][i];
+				}
+			}
+			for (int i = 0; i < n; i++)
+			{
+				mean[i] += sigma * step[i];
+			}
+
+			// ps = (1 - cs) ps + sqrt(cs (2 - cs) mueff) C^-1/2 step
+			double[] t = new double[n];
+			for (int j = 0; j < n; j++)
+			{
+				double s = 0;
+				for (int i = 0; i < n; i++)
+				{
+					s += b[i][j] * step[i];
+				}
+				t[j] = s / d[j];
+			}
+			double norm = 0;
+			for (int i = 0; i < n; i++)
+			{
+				double s = 0;
+				for (int j = 0; j < n; j++)
+				{
+					s += b[i][j] * t[j];
+				}
+				ps[i] = (1 - cs) * ps[i] + Math.sqrt(cs * (2 - cs) * mueff) * s;
+				norm += ps[i] * ps[i];
+			}
+			norm = Math.sqrt(norm);
+
+			boolean hsig = norm / Math.sqrt(1 - Math.pow(1 - cs, 2 * generation)) / chiN < 1.4 + 2.0 / (n + 1);
+			for (int i = 0; i < n; i++)
+			{
+				pc[i] = (1 - cc) * pc[i] + (hsig ? Math.sqrt(cc * (2 - cc) * mueff) * step[i] : 0);
+			}
+
+			// rank one and rank mu update of the covariance matrix
+			double correction = hsig ? 0 : c1 * cc * (2 - cc);
+			for (int i = 0; i < n; i++)
+			{
+				for (int j = 0; j <= i; j++)
+				{
+					double rankMu = 0;
+					for (int r = 0; r < mu; r++)
+					{
+						rankMu += weights[r] * y[order[r]][i] * y[order[r]][j];
+					}
+					c[i][j] = (1 - c1 - cmu) * c[i][j] + c1 * pc[i] * pc[j] + correction * c[i][j] + cmu * rankMu;
+					c[j][i] = c[i][j];
+				}
+			}
+
+			sigma *= Math.exp((cs / damps) * (norm / chiN - 1));
+
+			decompose();
+		}
+
+		/**
+		 * Computes B and d from C with the cyclic Jacobi method, which is
+		 * simple and accurate enough for the few weights of an evaluator.
+		 */
+		private void decompose()
+		{
+			double[][] a = new double[n][n];
+			for (int i = 0; i < n; i++)
+			{
+				a[i] = c[i].clone();
+				Arrays.fill(b[i], 0);
+				b[i][i] = 1;
+			}
+			for (int sweep = 0; sweep < 50; sweep++)
+			{
+				double off = 0;
+				for (int p = 0; p < n; p++)
+				{
+					for (int q = p + 1; q < n; q++)
+					{
+						off += a[p][q] * a[p][q];
+					}
+				}
+				if (off < 1e-30)
+				{
+					break;
+				}
+				for (int p = 0; p < n; p++)
+				{
+					for (int q = p + 1; q < n; q++)
+					{
+						if (a[p][q] == 0)
+						{
+							continue;
+						}
+						double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+						double tan = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+						if (theta == 0)
+						{
+							tan = 1;
+						}
+						double cos = 1 / Math.sqrt(tan * tan + 1);
+						double sin = tan * cos;
+						for (int k = 0; k < n; k++)
+						{
+							double akp = a[k][p];
+							double akq = a[k][q];
+							a[k][p] = cos * akp - sin * akq;
+							a[k][q] = sin * akp + cos * akq;
+						}
+						for (int k = 0; k < n; k++)
+						{
+							double apk = a[p][k];
+							double aqk = a[q][k];
+							a[p][k] = cos * apk - sin * aqk;
+							a[q][k] = sin * apk + cos * aqk;
+						}
+						for (int k = 0; k < n; k++)
+						{
+							double bkp = b[k][p];
+							double bkq = b[k][q];
+							b[k][p] = cos * bkp - sin * bkq;
+							b[k][q] = sin * bkp + cos * bkq;
+						}
+					}
+				}
+			}
+			for (int i = 0; i < n; i++)
+			{
+				// rounding errors can make tiny eigenvalues negative
+				d[i] = Math.sqrt(Math.max(a[i][i], 1e-20));
+			}
+		}
+
+		/**
+		 * @return whether the run should be restarted
+		 */
+		private boolean converged()
+		{
+			double max = 0, min = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < n; i++)
+			{
+				max = Math.max(max, d[i]);
+				min = Math.min(min, d[i]);
+			}
+			return sigma * max < tolX || max / min > 1e7;
+		}
+	}
+}
@@ -0,0 +1,426 @@
+package abalone.ai.machinelearning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+import abalone.ai.AbaloneSearchProblem;
+import abalone.ai.ConfigurableAI;
+import abalone.ai.SearchConfig;
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.HumanPlayer;
+import abalone.model.Move;
+import abalone.model.Player;
+
+/**
+ * Plays two AI configurations against each other until a sequential
+ * probability ratio test decides whether the first one is stronger, e.g. to
+ * find out whether a change to an evaluator or the search helps.
+ *
+ * The games are played in pairs: both start from the same random opening (or
+ * the next opening of an OpeningSuite), with the colours swapped, so neither
+ * the opening nor the side to move favours a configuration. The test uses the
+ * score of the pairs (0, 1/4, 1/2, 3/4 or 1 for the first configuration) as
+ * samples and tests the hypothesis that the first configuration is elo0
+ * stronger (H0) against elo1 stronger (H1), with the normal approximation of
+ * the generalized SPRT.
+ *
+ * The configurations are given as properties (see SearchConfig.load()), so
+ * every game gets its own players and evaluators. Every game starts from a
+ * hashed state (see StandardAbaloneLogic.initState()), so the configurations
+ * may use any hashing. The pairs are played in parallel on a thread per core.
+ * If a game fails, even with an Error, run() stops and throws.
+ */
+public class EngineMatch
+{
+	public enum Result
+	{
+		H0, // the first configuration is at most elo0 stronger
+		H1, // the first configuration is at least elo1 stronger
+		UNDECIDED // the maximum number of pairs was played
+	}
+
+	private final GameLogic logic;
+	private final Properties first, second;
+	private double elo0 = 0, elo1 = 20;
+	private double alpha = 0.05, beta = 0.05;
+	private int maxPairs = 1000;
+	private int openingPlies = 4;
+	private int maxPlies = 200;
+	private long seed = System.currentTimeMillis();
+	private OpeningSuite openings;
+	private boolean verbose = false;
+
+	// wins, draws and losses of the first configuration
+	private int wins, draws, losses;
+	// pairs[k] is the number of pairs in which the first configuration scored
+	// k half points
+	private int[] pairs = new int[5];
+	private int started, finished;
+	private Result result;
+	private RuntimeException failure;
+
+	public EngineMatch(GameLogic logic, Properties first, Properties second)
+	{
+		this.logic = logic;
+		this.first = first;
+		this.second = second;
+	}
+
+	/**
+	 * The Elo differences of the two hypotheses
+	 */
+	public void setHypotheses(double elo0, double elo1)
+	{
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+	}
+
+	/**
+	 * The probabilities of accepting H1 when H0 is true (alpha) and of
+	 * accepting H0 when H1 is true (beta)
+	 */
+	public void setErrors(double alpha, double beta)
+	{
+		this.alpha = alpha;
+		this.beta = beta;
+	}
+
+	public void setMaxPairs(int maxPairs)
+	{
+		this.maxPairs = maxPairs;
+	}
+
+	/**
+	 * The number of random plies from the starting position of an opening
+	 */
+	public void setOpeningPlies(int openingPlies)
+	{
+		this.openingPlies = openingPlies;
+	}
+
+	/**
+	 * The number of plies after which a game is a draw
+	 */
+	public void setMaxPlies(int maxPlies)
+	{
+		this.maxPlies = maxPlies;
+	}
+
+	/**
+	 * The seed of the openings; the same seed gives the same openings.
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * The openings of the pairs; pair k starts from opening k of the suite,
+	 * from the first opening again after the last. Without a suite (the
+	 * default) the openings are random plies.
+	 */
+	public void setOpenings(OpeningSuite openings)
+	{
+		this.openings = openings;
+	}
+
+	public void setVerbose(boolean verbose)
+	{
+		this.verbose = verbose;
+	}
+
+	/**
+	 * Plays pairs of games until the test is decided or the maximum number
+	 * of pairs is played.
+	 */
+	public Result run() throws InterruptedException
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try
+		{
+			synchronized (this)
+			{
+				while (result == null && failure == null)
+				{
+					// keep one pair per thread queued
+					while (started < maxPairs && started - finished < 2 * threads)
+					{
+						pool.execute(createPair(started));
+						started++;
+					}
+					wait();
+				}
+			}
+		}
+		finally
+		{
+			// stops the games that are still running
+			pool.shutdownNow();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		if (failure != null)
+		{
+			throw failure;
+		}
+		return result;
+	}
+
+	private Runnable createPair(final int pair)
+	{
+		return new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					Position opening = (openings == null) ? createOpening(new Random(seed + pair)) : openings
+							.get(pair % openings.size());
+					int game1 = play(first, second, opening, 0);
+					int game2 = play(second, first, opening, 1);
+					addPair(game1, game2);
+				}
+				catch (InterruptedException e)
+				{
+					// the match is decided
+				}
+				catch (Throwable e)
+				{
+					// also an Error, otherwise run() would wait for this pair
+					// forever
+					fail(e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * @param player
+	 *            the index of the first configuration in this game
+	 * @return the half points of the first configuration
+	 */
+	private int play(Properties a, Properties b, Position opening, int player) throws InterruptedException
+	{
+		ConfigurableAI ai1 = new ConfigurableAI(logic, SearchConfig.load(a));
+		ConfigurableAI ai2 = new ConfigurableAI(logic, SearchConfig.load(b));
+		SelfPlay game = new SelfPlay(logic);
+		game.setMaxPlies(maxPlies);
+		Player winner;
+		try
+		{
+			winner = game.play(ai1, ai2, opening, null);
+		}
+		finally
+		{
+			ai1.close();
+			ai2.close();
+		}
+		if (winner == null)
+		{
+			return 1;
+		}
+		return ((winner == ai1) == (player == 0)) ? 2 : 0;
+	}
+
+	private Position createOpening(Random random)
+	{
+		List<Player> players = new ArrayList<Player>();
+		players.add(new HumanPlayer("first"));
+		players.add(new HumanPlayer("second"));
+		GameState state = logic.initState(logic.initBoard(), players);
+		for (int ply = 0; ply < openingPlies; ply++)
+		{
+			List<Action> actions = new AbaloneSearchProblem(state, logic).generateActions(state);
+			logic.applyMove(state, (Move) actions.get(random.nextInt(actions.size())));
+		}
+		return new Position(state, null);
+	}
+
+	/**
+	 * @param game1
+	 *            the half points of the first configuration in the first
+	 *            game of the pair
+	 * @param game2
+	 *            and in the second game
+	 */
+	private synchronized void addPair(int game1, int game2)
+	{
+		if (result != null)
+		{
+			return;
+		}
+		for (int game : new int[] { game1, game2 })
+		{
+			if (game == 2)
+			{
+				wins++;
+			}
+			else if (game == 1)
+			{
+				draws++;
+			}
+			else
+			{
+				losses++;
+			}
+		}
+		pairs[game1 + game2]++;
+		finished++;
+
+		double llr = getLLR();
+		if (llr >= getUpperBound())
+		{
+			result = Result.H1;
+		}
+		else if (llr <= getLowerBound())
+		{
+			result = Result.H0;
+		}
+		else if (finished >= maxPairs)
+		{
+			result = Result.UNDECIDED;
+		}
+		if (verbose)
+		{
+			System.out.println(this);
+		}
+		notifyAll();
+	}
+
+	private synchronized void fail(Throwable e)
+	{
+		if (failure == null)
+		{
+			failure = (e instanceof RuntimeException) ? (RuntimeException) e : new RuntimeException("a game failed", e);
+		}
+		notifyAll();
+	}
+
+	public synchronized int getPairs()
+	{
+		return finished;
+	}
+
+	/**
+	 * @return the mean score of the first configuration per game
+	 */
+	public synchronized double getScore()
+	{
+		double sum = 0;
+		for (int k = 0; k < 5; k++)
+		{
+			sum += pairs[k] * k / 4.0;
+		}
+		return (finished == 0) ? 0.5 : sum / finished;
+	}
+
+	/**
+	 * @return the variance of the score of a pair, at least that of a single
+	 *         pair a quarter point away from the others, so a match in which
+	 *         every pair has the same score still reaches a bound
+	 */
+	private double getVariance()
+	{
+		if (finished == 0)
+		{
+			return 0;
+		}
+		double s = getScore();
+		double sum = 0;
+		for (int k = 0; k < 5; k++)
+		{
+			sum += pairs[k] * (k / 4.0 - s) * (k / 4.0 - s);
+		}
+		return Math.max(sum, 1 / 16.0) / finished;
+	}
+
+	/**
+	 * @return the estimated Elo difference of the first configuration
+	 */
+	public synchronized double getElo()
+	{
+		return elo(getScore());
+	}
+
+	/**
+	 * @return the half width of the 95% confidence interval of the Elo
+	 *         difference
+	 */
+	public synchronized double getEloError()
+	{
+		if (finished < 2)
+		{
+			return Double.POSITIVE_INFINITY;
+		}
+		double error = 1.96 * Math.sqrt(getVariance() / finished);
+		// one draw pair is added to the score, so it stays inside (0, 1), and
+		// the error is scaled with the slope of the Elo curve at that score
+		double s = (getScore() * finished + 0.5) / (finished + 1);
+		return error * 400 / (Math.log(10) * s * (1 - s));
+	}
+
+	/**
+	 * @return the log likelihood ratio of H1 against H0
+	 */
+	public synchronized double getLLR()
+	{
+		double variance = getVariance();
+		if (variance <= 0)
+		{
+			return 0;
+		}
+		double s0 = score(elo0);
+		double s1 = score(elo1);
+		return finished * (s1 - s0) * (2 * getScore() - s0 - s1) / (2 * variance);
+	}
+
+	/**
+	 * @return the log likelihood ratio at which H1 is accepted
+	 */
+	public double getUpperBound()
+	{
+		return Math.log((1 - beta) / alpha);
+	}
+
+	/**
+	 * @return the log likelihood ratio at which H0 is accepted
+	 */
+	public double getLowerBound()
+	{
+		return Math.log(beta / (1 - alpha));
+	}
+
+	private static double score(double elo)
+	{
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	private static double elo(double score)
+	{
+		if (score <= 0)
+		{
+			return Double.NEGATIVE_INFINITY;
+		}
+		if (score >= 1)
+		{
+			return Double.POSITIVE_INFINITY;
+		}
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("%d pairs, +%d =%d -%d, Elo %.1f +- %.1f, LLR %.2f [%.2f, %.2f]%s", finished, wins, draws,
+				losses, getElo(), getEloError(), getLLR(), getLowerBound(), getUpperBound(), (result == null) ? ""
+						: ", " + result);
+	}
+}
@@ -0,0 +1,54 @@
+package abalone.ai.machinelearning;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+
+/**
+ * Collects a Score per individual and adds the fitness of the scores to the
+ * individuals once all matches are finished. Adding a result does not lock,
+ * so any match can run in parallel with any other.
+ */
+public class FitnessCollector implements MatchResultCollector
+{
+	private ConcurrentHashMap<GeneticIndividual, Score> scores = new ConcurrentHashMap<GeneticIndividual, Score>();
+
+	@Override
+	public void add(GeneticIndividual individual, MatchStats stats)
+	{
+		getScore(individual).add(stats);
+	}
+
+	/**
+	 * @return the results of the individual since the last apply()
+	 */
+	public Score getScore(GeneticIndividual individual)
+	{
+		Score score = scores.get(individual);
+		if (score == null)
+		{
+			Score created = new Score();
+			score = scores.putIfAbsent(individual, created);
+			if (score == null)
+			{
+				score = created;
+			}
+		}
+		return score;
+	}
+
+	/**
+	 * Adds the collected fitness to the individuals and starts again. Must
+	 * only be called when all matches are finished.
+	 */
+	public void apply()
+	{
+		for (Map.Entry<GeneticIndividual, Score> entry : scores.entrySet())
+		{
+			GeneticIndividual individual = entry.getKey();
+			individual.setFitness(individual.getFitness() + entry.getValue().getFitness());
+		}
+		scores.clear();
+	}
+}
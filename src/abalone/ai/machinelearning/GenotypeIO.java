@@ -0,0 +1,65 @@
+package abalone.ai.machinelearning;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+
+/**
+ * Reads and writes a genotype of weights as text, one weight per line, so
+ * trained weights can be inspected and edited by hand.
+ */
+public class GenotypeIO
+{
+	private GenotypeIO()
+	{
+	}
+
+	public static void save(Genotype genotype, File file) throws IOException
+	{
+		PrintWriter out = new PrintWriter(new FileWriter(file));
+		try
+		{
+			for (Gene<Double> g : genotype)
+			{
+				out.println(g.getValue());
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+		if (out.checkError())
+		{
+			throw new IOException("cannot write " + file);
+		}
+	}
+
+	public static Genotype load(File file) throws IOException
+	{
+		Genotype genotype = new Genotype();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try
+		{
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				line = line.trim();
+				if (line.length() > 0 && !line.startsWith("#"))
+				{
+					genotype.add(new Weight(Double.parseDouble(line)));
+				}
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		return genotype;
+	}
+}
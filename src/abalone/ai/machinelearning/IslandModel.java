@@ -0,0 +1,294 @@
+package abalone.ai.machinelearning;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticSearch;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import nl.maastrichtuniversity.dke.libreason.genetics.reproduction.KeepBestPairwiseReproduction;
+import nl.maastrichtuniversity.dke.libreason.genetics.selection.ElitistSelection;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.machinelearning.TournamentModes.CachedCrossTournament;
+
+/**
+ * Evolves several populations of LinearEvaluators (islands) at the same
+ * time. Every island has its own GeneticSearch on its own thread, and plays
+ * its tournaments on its share of the cores. Every few generations an island
+ * sends copies of its best individuals to the next island in a ring, where
+ * they replace the worst individuals at the start of its next generation.
+ *
+ * The islands do not wait for each other: migrants are left in a queue of
+ * the receiving island, so a fast island does not wait for a slow one and
+ * all cores stay busy.
+ *
+ * The fitness of an individual is its result against its own island, so it
+ * cannot be compared across islands: migrants arrive without a fitness, and
+ * the best individual overall is found by a tournament of the island
+ * champions.
+ */
+public class IslandModel
+{
+	private final List<Island> islands = new ArrayList<Island>();
+	private int migrationInterval = 5;
+	private int migrants = 2;
+	private int selectionSize = 5;
+	private int plyLvl = 20;
+	private boolean verbose = false;
+
+	/**
+	 * @param populations
+	 *            the starting population of every island
+	 */
+	public IslandModel(List<GeneticPopulation> populations)
+	{
+		for (GeneticPopulation pop : populations)
+		{
+			islands.add(new Island(islands.size(), pop));
+		}
+	}
+
+	/**
+	 * Creates islands with random individuals.
+	 */
+	public IslandModel(int islands, int islandSize)
+	{
+		this(randomPopulations(islands, islandSize));
+	}
+
+	private static List<GeneticPopulation> randomPopulations(int islands, int islandSize)
+	{
+		List<GeneticPopulation> populations = new ArrayList<GeneticPopulation>();
+		for (int i = 0; i < islands; i++)
+		{
+			GeneticPopulation pop = new GeneticPopulation();
+			for (int j = 0; j < islandSize; j++)
+			{
+				pop.add(new LinearEvaluator());
+			}
+			populations.add(pop);
+		}
+		return populations;
+	}
+
+	/**
+	 * The number of generations between two migrations of an island
+	 */
+	public void setMigrationInterval(int migrationInterval)
+	{
+		this.migrationInterval = migrationInterval;
+	}
+
+	/**
+	 * The number of individuals an island sends per migration
+	 */
+	public void setMigrants(int migrants)
+	{
+		this.migrants = migrants;
+	}
+
+	/**
+	 * The number of individuals that survive a generation on an island
+	 */
+	public void setSelectionSize(int selectionSize)
+	{
+		this.selectionSize = selectionSize;
+	}
+
+	/**
+	 * The ply limit of the tournament matches
+	 */
+	public void setPlyLvl(int plyLvl)
+	{
+		this.plyLvl = plyLvl;
+	}
+
+	public void setVerbose(boolean verbose)
+	{
+		this.verbose = verbose;
+	}
+
+	/**
+	 * Evolves every island for the given number of generations and blocks
+	 * until all islands are done.
+	 */
+	public void run(int generations) throws InterruptedException
+	{
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / islands.size());
+		List<Thread> running = new ArrayList<Thread>();
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		for (Island island : islands)
+		{
+			Thread t = new Thread(island.createRunner(generations, threads), "island " + island.index);
+			t.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler()
+			{
+				@Override
+				public void uncaughtException(Thread t, Throwable e)
+				{
+					failures.add(e);
+				}
+			});
+			running.add(t);
+			t.start();
+		}
+		try
+		{
+			for (Thread t : running)
+			{
+				t.join();
+			}
+		}
+		finally
+		{
+			for (Thread t : running)
+			{
+				t.interrupt();
+			}
+		}
+		if (!failures.isEmpty())
+		{
+			throw new RuntimeException("an island failed", failures.get(0));
+		}
+	}
+
+	/**
+	 * @return the current population of every island
+	 */
+	public List<GeneticPopulation> getPopulations()
+	{
+		List<GeneticPopulation> populations = new ArrayList<GeneticPopulation>();
+		for (Island island : islands)
+		{
+			populations.add(island.getPopulation());
+		}
+		return populations;
+	}
+
+	/**
+	 * Plays the fittest individuals of the islands against each other in one
+	 * tournament.
+	 *
+	 * @return a copy of the winner of the tournament of the island champions
+	 */
+	public GeneticIndividual getBest() throws InterruptedException
+	{
+		GeneticPopulation champions = new GeneticPopulation();
+		for (GeneticPopulation pop : getPopulations())
+		{
+			champions.add(copy(Collections.max(pop)));
+		}
+		if (champions.size() > 1)
+		{
+			new CachedCrossTournament(plyLvl).eval(champions);
+		}
+		return Collections.max(champions);
+	}
+
+	private static GeneticIndividual copy(GeneticIndividual individual)
+	{
+		Genotype phenotype = new Genotype();
+		for (Gene<?> gene : individual.getPhenotype())
+		{
+			phenotype.add(gene.clone());
+		}
+		return new LinearEvaluator(phenotype);
+	}
+
+	private class Island
+	{
+		private final int index;
+		private final ConcurrentLinkedQueue<GeneticIndividual> arrivals = new ConcurrentLinkedQueue<GeneticIndividual>();
+		private volatile GeneticPopulation population;
+
+		Island(int index, GeneticPopulation population)
+		{
+			this.index = index;
+			this.population = population;
+		}
+
+		GeneticPopulation getPopulation()
+		{
+			return population;
+		}
+
+		Runnable createRunner(final int generations, final int threads)
+		{
+			return new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					CachedCrossTournament tournament = new CachedCrossTournament(plyLvl);
+					tournament.setThreads(threads);
+					GeneticSearch search = new GeneticSearch(population, new ElitistSelection(),
+							new KeepBestPairwiseReproduction(4, 2), tournament);
+					search.setSelectionSize(selectionSize);
+					try
+					{
+						for (int generation = 1; generation <= generations; generation++)
+						{
+							receive(search.getPopulation());
+							search.spawnGeneration();
+							population = search.getPopulation();
+							if (generation % migrationInterval == 0)
+							{
+								send(population);
+							}
+							if (verbose)
+							{
+								System.out.println("island " + index + ", generation " + generation + ": best "
+										+ Collections.max(population));
+							}
+						}
+					}
+					catch (InterruptedException e)
+					{
+						// stopped
+					}
+				}
+			};
+		}
+
+		/**
+		 * Replaces the worst individuals by the migrants that arrived. The
+		 * worst are removed before the migrants are added, so a migrant is
+		 * never ranked before it played on this island.
+		 */
+		private void receive(GeneticPopulation pop)
+		{
+			List<GeneticIndividual> arrived = new ArrayList<GeneticIndividual>();
+			GeneticIndividual migrant;
+			while ((migrant = arrivals.poll()) != null)
+			{
+				arrived.add(migrant);
+			}
+			for (int i = 0; i < arrived.size() && !pop.isEmpty(); i++)
+			{
+				pop.remove(Collections.min(pop));
+			}
+			pop.addAll(arrived);
+		}
+
+		/**
+		 * Sends copies of the best individuals to the next island.
+		 */
+		private void send(GeneticPopulation pop)
+		{
+			List<GeneticIndividual> ranked = new ArrayList<GeneticIndividual>(pop);
+			Collections.sort(ranked, Collections.reverseOrder());
+			Island next = islands.get((index + 1) % islands.size());
+			if (next == this)
+			{
+				return;
+			}
+			for (GeneticIndividual individual : ranked.subList(0, Math.min(migrants, ranked.size())))
+			{
+				next.arrivals.add(copy(individual));
+			}
+		}
+	}
+}
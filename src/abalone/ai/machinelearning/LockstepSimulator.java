@@ -0,0 +1,321 @@
+package abalone.ai.machinelearning;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import abalone.ai.AbaloneSearchProblem;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.HumanPlayer;
+import abalone.model.Move;
+import abalone.model.Player;
+
+/**
+ * Plays many matches between LinearEvaluator weights at the same time on one
+ * thread, as the SimpleAI would: a two ply minimax search per move. The
+ * games advance in lockstep. Per ply the leaves of the searches of all games
+ * are generated first and their function results are stored in one column
+ * per function; then all leaves are evaluated in one pass over the columns,
+ * with the weights of the player to move in each game; then every game plays
+ * its best move.
+ *
+ * The evaluation pass only reads plain arrays, which is friendlier to the
+ * caches than a search per game with the evaluation spread over it, and the
+ * JIT can compile it to SIMD instructions. The leaves are built in two
+ * reused states, so no state is allocated per leaf.
+ *
+ * A leaf where a player has won is worth 1 or -1, as in the minimax search.
+ * Of moves with the same value the first one generated is played. Matches
+ * are adjudicated after every ply as in Match.
+ */
+public class LockstepSimulator
+{
+	private static final int N = LinearEvaluator.NUMBER_OF_FUNCTIONS;
+
+	private final GameLogic logic;
+	private final int plyLvl;
+	private Adjudicator adjudicator = Adjudicator.none();
+	private final List<Game> games = new ArrayList<Game>();
+
+	// columns[i][k] is function i of leaf k of the current ply
+	private int[][] columns = new int[N][1 << 14];
+	// 1 or -1 if the leaf is won or lost for the player to move, otherwise 0
+	private byte[] terminal = new byte[1 << 14];
+	private double[] values = new double[1 << 14];
+	// the leaves of move m are moveEnd[m - 1] .. moveEnd[m] - 1
+	private int[] moveEnd = new int[1 << 10];
+	private int leaves, moves;
+
+	private final LinearEvaluator extractor = new LinearEvaluator();
+	private final int[] results = new int[N];
+	private final GameState child = new GameState();
+	private final GameState leaf = new GameState();
+
+	/**
+	 * A match in progress
+	 */
+	private static class Game
+	{
+		private GeneticIndividual p1, p2;
+		private GameState state;
+		// weights[p][i] is weight i of player p
+		private double[][] weights = new double[2][N];
+		// the evaluators of both players, for the adjudication
+		private LinearEvaluator[] evaluators = new LinearEvaluator[2];
+		private Adjudicator.Game adjudication;
+		private List<Action> actions;
+		// the index of the player to move
+		private int mover;
+		private int firstMove;
+		private int plies;
+	}
+
+	/**
+	 * @param plyLvl
+	 *            the number of plies after which a match is stopped
+	 */
+	public LockstepSimulator(GameLogic logic, int plyLvl)
+	{
+		this.logic = logic;
+		this.plyLvl = plyLvl;
+	}
+
+	/**
+	 * The adjudicator that may end a match before the ply limit; by default
+	 * none, so every match is played to the end
+	 */
+	public void setAdjudicator(Adjudicator adjudicator)
+	{
+		this.adjudicator = adjudicator;
+	}
+
+	public void addMatch(GeneticIndividual p1, GeneticIndividual p2)
+	{
+		addMatch(p1, p2, null);
+	}
+
+	/**
+	 * @param opening
+	 *            the position to start from, or null for the starting position
+	 */
+	public void addMatch(GeneticIndividual p1, GeneticIndividual p2, Position opening)
+	{
+		Game game = new Game();
+		game.p1 = p1;
+		game.p2 = p2;
+		List<Player> players = new ArrayList<Player>();
+		players.add(new HumanPlayer("first"));
+		players.add(new HumanPlayer("second"));
+		game.state = (opening == null) ? logic.initState(logic.initBoard(), players) : opening.toState(logic,
+				logic.initBoard(), players);
+		setWeights(game.weights[0], p1);
+		setWeights(game.weights[1], p2);
+		game.evaluators[0] = new LinearEvaluator(p1.getPhenotype());
+		game.evaluators[1] = new LinearEvaluator(p2.getPhenotype());
+		game.adjudication = adjudicator.start(game.state);
+		games.add(game);
+	}
+
+	private static void setWeights(double[] weights, GeneticIndividual individual)
+	{
+		for (int i = 0; i < N; i++)
+		{
+			weights[i] = (Double) ((Gene<?>) individual.getPhenotype().get(i)).getValue();
+		}
+	}
+
+	/**
+	 * Plays all added matches to the end and gives the results to the
+	 * collector, in the order in which the matches end.
+	 */
+	public void run(MatchResultCollector collector)
+	{
+		List<Game> active = new ArrayList<Game>(games);
+		games.clear();
+		while (!active.isEmpty())
+		{
+			leaves = 0;
+			moves = 0;
+			for (Game game : active)
+			{
+				expand(game);
+			}
+			evaluate(active);
+			for (Iterator<Game> it = active.iterator(); it.hasNext();)
+			{
+				Game game = it.next();
+				logic.applyMove(game.state, (Move) game.actions.get(chooseMove(game)));
+				game.actions = null;
+				game.plies++;
+				if (logic.getWinner(game.state) != null || game.plies == plyLvl
+						|| game.adjudication.check(game.state, game.evaluators[1 - game.mover]))
+				{
+					finish(game, collector);
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the leaves of the two ply search of the game to the columns.
+	 */
+	private void expand(Game game)
+	{
+		GameState root = game.state;
+		extractor.setInitialState(root);
+		Player mover = root.getCurrentPlayer();
+		game.mover = root.getPlayers().indexOf(mover);
+		game.actions = new AbaloneSearchProblem(root, logic).generateActions(root);
+		game.firstMove = moves;
+		for (Action action : game.actions)
+		{
+			root.copyInto(child);
+			logic.applyMove(child, (Move) action);
+			List<Action> replies = null;
+			if (logic.getWinner(child) == null)
+			{
+				replies = new AbaloneSearchProblem(child, logic).generateActions(child);
+			}
+			if (replies == null || replies.isEmpty())
+			{
+				addLeaf(child, mover);
+			}
+			else
+			{
+				for (Action reply : replies)
+				{
+					child.copyInto(leaf);
+					logic.applyMove(leaf, (Move) reply);
+					addLeaf(leaf, mover);
+				}
+			}
+			if (moves == moveEnd.length)
+			{
+				int[] larger = new int[2 * moveEnd.length];
+				System.arraycopy(moveEnd, 0, larger, 0, moves);
+				moveEnd = larger;
+			}
+			moveEnd[moves++] = leaves;
+		}
+	}
+
+	private void addLeaf(GameState s, Player mover)
+	{
+		if (leaves == terminal.length)
+		{
+			grow();
+		}
+		Player winner = logic.getWinner(s);
+		if (winner != null)
+		{
+			terminal[leaves] = (byte) ((winner == mover) ? 1 : -1);
+		}
+		else
+		{
+			terminal[leaves] = 0;
+			extractor.extractFunctionResults(s, results);
+			for (int i = 0; i < N; i++)
+			{
+				columns[i][leaves] = results[i];
+			}
+		}
+		leaves++;
+	}
+
+	private void grow()
+	{
+		int capacity = 2 * terminal.length;
+		for (int i = 0; i < N; i++)
+		{
+			int[] larger = new int[capacity];
+			System.arraycopy(columns[i], 0, larger, 0, leaves);
+			columns[i] = larger;
+		}
+		byte[] largerTerminal = new byte[capacity];
+		System.arraycopy(terminal, 0, largerTerminal, 0, leaves);
+		terminal = largerTerminal;
+		values = new double[capacity];
+	}
+
+	/**
+	 * Evaluates the leaves of all games in one pass per function.
+	 */
+	private void evaluate(List<Game> active)
+	{
+		for (int k = 0; k < leaves; k++)
+		{
+			values[k] = 0;
+		}
+		for (int i = 0; i < N; i++)
+		{
+			int[] column = columns[i];
+			double scale = LinearEvaluator.getScale(i);
+			for (Game game : active)
+			{
+				double factor = game.weights[game.mover][i] * scale;
+				int from = (game.firstMove == 0) ? 0 : moveEnd[game.firstMove - 1];
+				int to = moveEnd[game.firstMove + game.actions.size() - 1];
+				// the same operations as LinearEvaluator.weightedSum(), so
+				// equal moves are chosen
+				for (int k = from; k < to; k++)
+				{
+					values[k] += factor * column[k];
+				}
+			}
+		}
+		for (int k = 0; k < leaves; k++)
+		{
+			if (terminal[k] != 0)
+			{
+				values[k] = terminal[k];
+			}
+		}
+	}
+
+	/**
+	 * @return the index of the move with the best minimax value
+	 */
+	private int chooseMove(Game game)
+	{
+		int best = 0;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int m = 0; m < game.actions.size(); m++)
+		{
+			int move = game.firstMove + m;
+			int from = (move == 0) ? 0 : moveEnd[move - 1];
+			double min = Double.POSITIVE_INFINITY;
+			for (int k = from; k < moveEnd[move]; k++)
+			{
+				if (values[k] < min)
+				{
+					min = values[k];
+				}
+			}
+			if (min > bestValue)
+			{
+				bestValue = min;
+				best = m;
+			}
+		}
+		return best;
+	}
+
+	private void finish(Game game, MatchResultCollector collector)
+	{
+		List<Player> players = game.state.getPlayers();
+		Player winner = game.adjudication.isAdjudicated() ? game.adjudication.getWinner() : logic
+				.getWinner(game.state);
+		int lost1 = game.state.getMarblesRemoved().get(players.get(0));
+		int lost2 = game.state.getMarblesRemoved().get(players.get(1));
+		collector.add(game.p1, new MatchStats(winner == players.get(0), winner == players.get(1), lost2, lost1,
+				game.plies));
+		collector.add(game.p2, new MatchStats(winner == players.get(1), winner == players.get(0), lost1, lost2,
+				game.plies));
+	}
+}
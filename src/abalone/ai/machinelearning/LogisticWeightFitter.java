@@ -0,0 +1,239 @@
+package abalone.ai.machinelearning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Board;
+import abalone.model.HumanPlayer;
+import abalone.model.Player;
+
+/**
+ * Fits the weights of the LinearEvaluator to recorded positions instead of
+ * playing tournaments. The evaluation of a position, seen from the player to
+ * move, is read as the logit of the probability that this player wins the
+ * game; the weights minimize the logistic loss against the actual results by
+ * gradient descent.
+ *
+ * The scaled function results of all positions are extracted once into one
+ * primitive matrix. Every step of the descent divides the rows over all
+ * cores.
+ */
+public class LogisticWeightFitter
+{
+	private static final int N = LinearEvaluator.NUMBER_OF_FUNCTIONS;
+
+	private int iterations = 2000;
+	private double learningRate = 2;
+	private double regularization = 1e-4;
+	private boolean verbose = false;
+
+	// features[row * N + i] is scaled function i of position row
+	private double[] features;
+	private double[] results;
+	private int rows;
+	private ExecutorService executor;
+	private int chunks;
+
+	public void setIterations(int iterations)
+	{
+		this.iterations = iterations;
+	}
+
+	public void setLearningRate(double learningRate)
+	{
+		this.learningRate = learningRate;
+	}
+
+	/**
+	 * The weight of the L2 penalty on the weights
+	 */
+	public void setRegularization(double regularization)
+	{
+		this.regularization = regularization;
+	}
+
+	public void setVerbose(boolean verbose)
+	{
+		this.verbose = verbose;
+	}
+
+	/**
+	 * Fits the weights to the positions.
+	 * 
+	 * @return the weights, scaled to a sum of absolute values of 1 like the
+	 *         weights of the genetic algorithm
+	 */
+	public Genotype fit(final List<Position> positions, final GameLogic logic) throws InterruptedException
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		executor = Executors.newFixedThreadPool(threads);
+		chunks = threads;
+		try
+		{
+			rows = positions.size();
+			features = new double[rows * N];
+			results = new double[rows];
+			extractFeatures(positions, logic);
+
+			double[] w = new double[N];
+			for (int it = 1; it <= iterations; it++)
+			{
+				double[] gradient = gradient(w);
+				for (int i = 0; i < N; i++)
+				{
+					w[i] -= learningRate * gradient[i];
+				}
+				if (verbose && (it % 100 == 0 || it == iterations))
+				{
+					System.out.println("iteration " + it + " loss " + gradient[N]);
+				}
+			}
+
+			double sum = 0;
+			for (double d : w)
+			{
+				sum += Math.abs(d);
+			}
+			Genotype genotype = new Genotype();
+			for (double d : w)
+			{
+				genotype.add(new Weight(sum == 0 ? 0 : d / sum));
+			}
+			return genotype;
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private void extractFeatures(final List<Position> positions, final GameLogic logic) throws InterruptedException
+	{
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(chunks);
+		for (int c = 0; c < chunks; c++)
+		{
+			final int from = c * rows / chunks;
+			final int to = (c + 1) * rows / chunks;
+			tasks.add(new Callable<Object>()
+			{
+				@Override
+				public Object call()
+				{
+					Board board = logic.initBoard();
+					List<Player> players = new ArrayList<Player>();
+					players.add(new HumanPlayer("first"));
+					players.add(new HumanPlayer("second"));
+					LinearEvaluator evaluator = new LinearEvaluator();
+					int[] f = new int[N];
+					for (int row = from; row < to; row++)
+					{
+						Position p = positions.get(row);
+						GameState s = p.toState(logic, board, players);
+						// the functions are seen from the player to move
+						evaluator.setInitialState(s);
+						evaluator.extractFunctionResults(s, f);
+						for (int i = 0; i < N; i++)
+						{
+							features[row * N + i] = f[i] * LinearEvaluator.getScale(i);
+						}
+						results[row] = p.getResultToMove();
+					}
+					return null;
+				}
+			});
+		}
+		runAll(tasks);
+	}
+
+	/**
+	 * @return the gradient of the mean loss, with the mean loss itself as the
+	 *         extra last element
+	 */
+	private double[] gradient(final double[] w) throws InterruptedException
+	{
+		List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>(chunks);
+		for (int c = 0; c < chunks; c++)
+		{
+			final int from = c * rows / chunks;
+			final int to = (c + 1) * rows / chunks;
+			tasks.add(new Callable<double[]>()
+			{
+				@Override
+				public double[] call()
+				{
+					double[] g = new double[N + 1];
+					for (int row = from; row < to; row++)
+					{
+						int offset = row * N;
+						double z = 0;
+						for (int i = 0; i < N; i++)
+						{
+							z += w[i] * features[offset + i];
+						}
+						double p = 1 / (1 + Math.exp(-z));
+						double error = p - results[row];
+						for (int i = 0; i < N; i++)
+						{
+							g[i] += error * features[offset + i];
+						}
+						// log loss, with the probability kept away from 0 and 1
+						double q = Math.min(Math.max(p, 1e-12), 1 - 1e-12);
+						g[N] -= results[row] * Math.log(q) + (1 - results[row]) * Math.log(1 - q);
+					}
+					return g;
+				}
+			});
+		}
+
+		double[] gradient = new double[N + 1];
+		for (Future<double[]> f : runAll(tasks))
+		{
+			double[] g = getResult(f);
+			for (int i = 0; i <= N; i++)
+			{
+				gradient[i] += g[i];
+			}
+		}
+		for (int i = 0; i <= N; i++)
+		{
+			gradient[i] /= rows;
+		}
+		for (int i = 0; i < N; i++)
+		{
+			gradient[i] += regularization * w[i];
+			gradient[N] += 0.5 * regularization * w[i] * w[i];
+		}
+		return gradient;
+	}
+
+	private <T> List<Future<T>> runAll(List<Callable<T>> tasks) throws InterruptedException
+	{
+		List<Future<T>> futures = executor.invokeAll(tasks);
+		for (Future<T> f : futures)
+		{
+			getResult(f);
+		}
+		return futures;
+	}
+
+	private static <T> T getResult(Future<T> f) throws InterruptedException
+	{
+		try
+		{
+			return f.get();
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException("fitting failed", e.getCause());
+		}
+	}
+}
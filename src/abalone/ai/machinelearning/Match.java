@@ -0,0 +1,96 @@
+package abalone.ai.machinelearning;
+
+import java.util.LinkedList;
+import java.util.Map;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import abalone.ai.SimpleAI;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Player;
+
+/**
+ * Plays a match between two individuals with SimpleAIs, as in the
+ * tournaments. Every match gets its own copies of the evaluators, because an
+ * evaluator keeps the state of the search it is used in, so matches of the
+ * same individual can be played at the same time.
+ */
+public class Match
+{
+	private GameLogic logic;
+	private int plyLvl;
+	private Adjudicator adjudicator = Adjudicator.none();
+
+	/**
+	 * @param plyLvl
+	 *            the number of plies after which a match is stopped
+	 */
+	public Match(GameLogic logic, int plyLvl)
+	{
+		this.logic = logic;
+		this.plyLvl = plyLvl;
+	}
+
+	/**
+	 * The adjudicator that may end a match before the ply limit; by default
+	 * none, so every match is played to the end
+	 */
+	public void setAdjudicator(Adjudicator adjudicator)
+	{
+		this.adjudicator = adjudicator;
+	}
+
+	/**
+	 * Plays a match from the starting position.
+	 *
+	 * @return the statistics of the first and of the second individual
+	 */
+	public MatchStats[] play(GeneticIndividual p1, GeneticIndividual p2) throws InterruptedException
+	{
+		return play(p1, p2, null);
+	}
+
+	/**
+	 * Plays a match from an opening, see OpeningSuite.
+	 *
+	 * @param opening
+	 *            the position to start from, or null for the starting position
+	 * @return the statistics of the first and of the second individual
+	 */
+	public MatchStats[] play(GeneticIndividual p1, GeneticIndividual p2, Position opening)
+			throws InterruptedException
+	{
+		LinearEvaluator eval1 = new LinearEvaluator(p1.getPhenotype());
+		LinearEvaluator eval2 = new LinearEvaluator(p2.getPhenotype());
+		SimpleAI ai1 = new SimpleAI(logic, eval1);
+		SimpleAI ai2 = new SimpleAI(logic, eval2);
+		LinkedList<Player> players = new LinkedList<Player>();
+		players.add(ai1);
+		players.add(ai2);
+		GameState state = (opening == null) ? logic.initState(logic.initBoard(), players) : opening.toState(logic,
+				logic.initBoard(), players);
+
+		Adjudicator.Game adjudication = adjudicator.start(state);
+		int numberOfPlies = 1;
+		while (logic.getWinner(state) == null && numberOfPlies <= plyLvl)
+		{
+			SimpleAI current = (SimpleAI) state.getCurrentPlayer();
+			logic.applyMove(state, current.decide(state));
+			numberOfPlies++;
+			if (logic.getWinner(state) == null
+					&& adjudication.check(state, (state.getCurrentPlayer() == ai1) ? eval1 : eval2))
+			{
+				break;
+			}
+		}
+
+		Player winner = adjudication.isAdjudicated() ? adjudication.getWinner() : logic.getWinner(state);
+		Map<Player, Integer> lostMarbles = state.getMarblesRemoved();
+		int lost1 = lostMarbles.get(ai1);
+		int lost2 = lostMarbles.get(ai2);
+		int plies = numberOfPlies - 1;
+		return new MatchStats[] { new MatchStats(winner == ai1, winner == ai2, lost2, lost1, plies),
+				new MatchStats(winner == ai2, winner == ai1, lost1, lost2, plies) };
+	}
+}
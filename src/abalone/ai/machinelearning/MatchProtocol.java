@@ -0,0 +1,187 @@
+package abalone.ai.machinelearning;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+
+/**
+ * The binary messages between the coordinator of a distributed tournament
+ * and its workers (big endian, as written by DataOutputStream):
+ * <pre>
+ * worker hello:  int magic "ABMP", int version
+ * match:         byte MATCH, int id, utf logic class, int ply limit,
+ *                int n, double[n] weights 1, int m, double[m] weights 2
+ * result:        byte RESULT, int id, stats of player 1, stats of player 2
+ *                (stats: byte flags (1 winner, 2 loser), byte pushed,
+ *                byte lost, short plies)
+ * error:         byte ERROR, int id, utf message
+ * shutdown:      byte SHUTDOWN
+ * </pre>
+ * A worker answers every match with a result or an error before it reads the
+ * next message.
+ */
+public final class MatchProtocol
+{
+	public static final int MAGIC = 0x41424D50; // "ABMP"
+	public static final int VERSION = 1;
+
+	public static final byte MATCH = 1;
+	public static final byte RESULT = 2;
+	public static final byte ERROR = 3;
+	public static final byte SHUTDOWN = 4;
+
+	private MatchProtocol()
+	{
+	}
+
+	/**
+	 * A match as sent to a worker
+	 */
+	public static class MatchSpec
+	{
+		private final int id;
+		private final String logicClass;
+		private final int plyLvl;
+		private final Genotype first, second;
+
+		public MatchSpec(int id, String logicClass, int plyLvl, Genotype first, Genotype second)
+		{
+			this.id = id;
+			this.logicClass = logicClass;
+			this.plyLvl = plyLvl;
+			this.first = first;
+			this.second = second;
+		}
+
+		public int getId()
+		{
+			return id;
+		}
+
+		public String getLogicClass()
+		{
+			return logicClass;
+		}
+
+		public int getPlyLvl()
+		{
+			return plyLvl;
+		}
+
+		public Genotype getFirst()
+		{
+			return first;
+		}
+
+		public Genotype getSecond()
+		{
+			return second;
+		}
+	}
+
+	public static void writeHello(DataOutputStream out) throws IOException
+	{
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.flush();
+	}
+
+	public static void readHello(DataInputStream in) throws IOException
+	{
+		if (in.readInt() != MAGIC || in.readInt() != VERSION)
+		{
+			throw new IOException("not a tournament worker of protocol version " + VERSION);
+		}
+	}
+
+	public static void writeMatch(DataOutputStream out, MatchSpec match) throws IOException
+	{
+		out.writeByte(MATCH);
+		out.writeInt(match.getId());
+		out.writeUTF(match.getLogicClass());
+		out.writeInt(match.getPlyLvl());
+		writeGenotype(out, match.getFirst());
+		writeGenotype(out, match.getSecond());
+		out.flush();
+	}
+
+	/**
+	 * Reads the rest of a match message after its type.
+	 */
+	public static MatchSpec readMatch(DataInputStream in) throws IOException
+	{
+		int id = in.readInt();
+		String logicClass = in.readUTF();
+		int plyLvl = in.readInt();
+		Genotype first = readGenotype(in);
+		Genotype second = readGenotype(in);
+		return new MatchSpec(id, logicClass, plyLvl, first, second);
+	}
+
+	public static void writeResult(DataOutputStream out, int id, MatchStats[] stats) throws IOException
+	{
+		out.writeByte(RESULT);
+		out.writeInt(id);
+		for (MatchStats s : stats)
+		{
+			out.writeByte((s.isWinner() ? 1 : 0) | (s.isLoser() ? 2 : 0));
+			out.writeByte(s.getPushedMarbles());
+			out.writeByte(s.getLostMarbles());
+			out.writeShort(s.getNumberOfPlies());
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads the statistics of both players of a result message after its
+	 * type and id.
+	 */
+	public static MatchStats[] readResult(DataInputStream in) throws IOException
+	{
+		MatchStats[] stats = new MatchStats[2];
+		for (int i = 0; i < 2; i++)
+		{
+			int flags = in.readByte();
+			int pushed = in.readByte();
+			int lost = in.readByte();
+			int plies = in.readUnsignedShort();
+			stats[i] = new MatchStats((flags & 1) != 0, (flags & 2) != 0, pushed, lost, plies);
+		}
+		return stats;
+	}
+
+	public static void writeError(DataOutputStream out, int id, String message) throws IOException
+	{
+		out.writeByte(ERROR);
+		out.writeInt(id);
+		out.writeUTF(String.valueOf(message));
+		out.flush();
+	}
+
+	private static void writeGenotype(DataOutputStream out, Genotype genotype) throws IOException
+	{
+		out.writeInt(genotype.size());
+		for (Gene<?> gene : genotype)
+		{
+			out.writeDouble((Double) gene.getValue());
+		}
+	}
+
+	private static Genotype readGenotype(DataInputStream in) throws IOException
+	{
+		int n = in.readInt();
+		if (n < 0 || n > 1024)
+		{
+			throw new IOException("invalid number of weights: " + n);
+		}
+		Genotype genotype = new Genotype();
+		for (int i = 0; i < n; i++)
+		{
+			genotype.add(new Weight(in.readDouble()));
+		}
+		return genotype;
+	}
+}
@@ -0,0 +1,15 @@
+package abalone.ai.machinelearning;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+
+/**
+ * Receives the results of matches as soon as they are finished. The matches
+ * run on several threads, so implementations have to be thread-safe.
+ */
+public interface MatchResultCollector
+{
+	/**
+	 * Called once for each of the two individuals of a finished match.
+	 */
+	public void add(GeneticIndividual individual, MatchStats stats);
+}
@@ -1,14 +1,18 @@
 package abalone.ai.machinelearning;
 
+/**
+ * The result of one match from the point of view of one of the players.
+ */
 public class MatchStats
 {
-	private boolean winner;
+	private boolean winner, loser;
 	private int pushedMarbles, lostMarbles;
 	private int numberOfPlies;
 
-	public MatchStats(boolean winner, int pushedMarbles, int lostMarbles, int numberOfPlies)
+	public MatchStats(boolean winner, boolean loser, int pushedMarbles, int lostMarbles, int numberOfPlies)
 	{
 		this.winner = winner;
+		this.loser = loser;
 		this.pushedMarbles = pushedMarbles;
 		this.lostMarbles = lostMarbles;
 		this.numberOfPlies = numberOfPlies;
@@ -24,6 +28,15 @@ public class MatchStats
 		return winner;
 	}
 
+	/**
+	 * @return whether the opponent won; if neither player won, the match was
+	 *         stopped at the ply limit
+	 */
+	public boolean isLoser()
+	{
+		return loser;
+	}
+
 	public int getPushedMarbles()
 	{
 		return pushedMarbles;
@@ -33,4 +46,22 @@ public class MatchStats
 	{
 		return lostMarbles;
 	}
+
+	/**
+	 * @return the fitness the tournaments give for the match: 1 for a win, -1
+	 *         for a loss, otherwise 0.1 per pushed marble minus 0.1 per lost
+	 *         marble
+	 */
+	public double getFitness()
+	{
+		if (winner)
+		{
+			return 1;
+		}
+		if (loser)
+		{
+			return -1;
+		}
+		return .1 * pushedMarbles - .1 * lostMarbles;
+	}
 }
@@ -1,132 +1,111 @@
 package abalone.ai.machinelearning;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Random;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import nl.maastrichtuniversity.dke.libreason.def.heuristic.Evaluator;
 import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
-import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
-import abalone.ai.SimpleAI;
-import abalone.ai.evaluation.LinearEvaluator;
-import abalone.gamelogic.GameLogic;
 import abalone.gamelogic.StandardAbaloneLogic;
-import abalone.gamestate.GameState;
-import abalone.model.Board;
-import abalone.model.Move;
-import abalone.model.Player;
 
+/**
+ * Plays matches between individuals on a pool with one thread per core. The
+ * fitness of the matches is collected per individual and given to the
+ * individuals when all matches are finished, so an individual can play
+ * several matches at the same time.
+ */
 public class MultiThreadedPlay {
-	private GameLogic logic;
-	private Board board;
-	private GeneticPopulation pop;
-	private Random random;
+	private Match match;
 	private ArrayList<MatchThread> matches = new ArrayList<MatchThread>();
-	private ArrayList<ArrayList<Thread>> threads = new ArrayList<ArrayList<Thread>>();
+	private FitnessCollector fitness = new FitnessCollector();
+	private OpeningSuite openings;
 	protected int plyLvl = 80;
 	
 	public MultiThreadedPlay(int plyLvl){
-		this.logic = new StandardAbaloneLogic();
-		this.board = logic.initBoard();
-		random = new Random();
+		this.match = new Match(new StandardAbaloneLogic(), plyLvl);
 		this.plyLvl = plyLvl;
 	}
 	
+	/**
+	 * The adjudicator that may end a match before the ply limit; by default
+	 * none, so every match is played to the end
+	 */
+	public void setAdjudicator(Adjudicator adjudicator)
+	{
+		match.setAdjudicator(adjudicator);
+	}
+
+	/**
+	 * The openings the matches start from; every added match is played twice
+	 * from the next opening of the suite, once with either individual first.
+	 * Without a suite (the default) a match is played once from the starting
+	 * position.
+	 */
+	public void setOpenings(OpeningSuite openings)
+	{
+		this.openings = openings;
+	}
+
 	public void addMatch(GeneticIndividual p1, GeneticIndividual p2){
+		if (openings == null)
+		{
+			addMatch(p1, p2, null);
+		}
+		else
+		{
+			Position opening = openings.next();
+			addMatch(p1, p2, opening);
+			addMatch(p2, p1, opening);
+		}
+	}
+
+	private void addMatch(GeneticIndividual p1, GeneticIndividual p2, Position opening)
+	{
 		MatchThread match = new MatchThread();
-		
+
 		match.setp1(p1);
 		match.setp2(p2);
+		match.setOpening(opening);
 
 		matches.add(match);
 	}
-	
-	private ArrayList<ArrayList<Thread>> splitMatches()
-	{
-//		System.out.println("Splitting matches...");
-		
-		threads.clear();
-		ArrayList<GeneticIndividual> currentIndividuals = new ArrayList<GeneticIndividual>();
-		int arrayNr = 0;
 
-		while (!matches.isEmpty())
+	/**
+	 * Plays all added matches and blocks until they are finished.
+	 */
+	public void runMatches() throws InterruptedException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try
 		{
-			threads.add(new ArrayList<Thread>());
-			int i = 0;
-			for (Iterator<MatchThread> it = matches.iterator(); it.hasNext();)
+			List<Future<Object>> results = pool.invokeAll(new ArrayList<Callable<Object>>(matches));
+			for (Future<Object> result : results)
 			{
-				MatchThread match = it.next();
-				if (!currentIndividuals.contains(match.getP1()) && !currentIndividuals.contains(match.getP2()))
-				{
-					currentIndividuals.add(match.getP1());
-					currentIndividuals.add(match.getP2());
-					threads.get(arrayNr).add(new Thread(match));
-					it.remove();
-				}
-				i++;
+				result.get();
 			}
-			currentIndividuals.clear();
-			arrayNr++;
 		}
-		
-//		System.out.println("Splitting finished");
-		
-		return threads;
-	}
-
-	public void runMatches()
-	{
-		splitMatches();
-		
-//		System.out.println("Running matches...");
-		
-		boolean finished;
-		int it = 0;
-		int nrMatches = 0;
-		for (ArrayList<Thread> matchList : threads)
+		catch (ExecutionException e)
 		{
-//			System.out.println("running matchList " + it + " (size: " + matchList.size() + " )");
-			nrMatches += matchList.size();
-			it++;
-
-			for (Thread matchThread : matchList)
-			{
-				matchThread.start();
-			}
-
-			finished = false;
-//			System.out.println("Starting while loop");
-			int counter;
-			int counter2 = 0;
-			while (!finished)
-			{
-				finished = true;
-				counter = 0;
-				for (Thread thread : matchList)
-				{
-					if (thread.isAlive())
-						finished = false;
-					else counter++;
-				}
-				if(counter > counter2) {
-					System.out.print(".");
-					counter2 = counter;
-				}
-			}
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			pool.shutdownNow();
+			matches.clear();
 		}
 		System.out.println();
-//		System.out.println("Finished running");
-//		System.out.println("Total nr threads: " + nrMatches);
-		matches.clear();
+		fitness.apply();
 	}
 
-	private class MatchThread implements Runnable
+	private class MatchThread implements Callable<Object>
 	{
 
 		private GeneticIndividual p1;
 		private GeneticIndividual p2;
+		private Position opening;
 
 		public void setp1(GeneticIndividual p1)
 		{
@@ -138,6 +117,11 @@ public class MultiThreadedPlay {
 			this.p2 = p2;
 		}
 
+		public void setOpening(Position opening)
+		{
+			this.opening = opening;
+		}
+
 		public GeneticIndividual getP1()
 		{
 			return p1;
@@ -149,65 +133,13 @@ public class MultiThreadedPlay {
 		}
 
 		@Override
-		public void run()
+		public Object call() throws InterruptedException
 		{
-			LinkedList<Player> players = new LinkedList<Player>();
-			players.add(new SimpleAI(logic, (Evaluator<Double>) p1));
-			players.add(new SimpleAI(logic, (Evaluator<Double>) p2));
-			Board boardT = logic.initBoard();
-			GameState state = logic.initState(boardT, players);
-
-			boolean finished = false;
-			int numberOfPlies = 1;
-
-			try
-			{
-				while (!finished)
-				{
-					SimpleAI current = (SimpleAI) state.getCurrentPlayer();
-					SimpleAI opponent = (SimpleAI) state.getOpponentPlayer();
-					Move move = current.decide(state);
-					logic.applyMove(state, move);
-
-					if (logic.getWinner(state) != null)
-					{
-						finished = true;
-
-						// update statistics for winner
-						double wFit = ((LinearEvaluator) current.getEvaluator()).getFitness() + 1;
-						((LinearEvaluator) current.getEvaluator()).setFitness(wFit);
-
-						// update statistics for loser
-						double lFit = ((LinearEvaluator) opponent.getEvaluator()).getFitness() - 1;
-						((LinearEvaluator) opponent.getEvaluator()).setFitness(lFit);
-
-					}
-					else if (numberOfPlies == plyLvl)
-					{
-						finished = true;
-
-						Map<Player, Integer> lostMarbles = state.getMarblesRemoved();
-						int pushed = lostMarbles.get(opponent);
-						int lost = lostMarbles.get(current);
-
-						// update statistics for current player
-						double wFit = ((LinearEvaluator) current.getEvaluator()).getFitness() + .1 * pushed - .1 * lost;
-						((LinearEvaluator) current.getEvaluator()).setFitness(wFit);
-
-						// update statistics for opponent
-						double lFit = ((LinearEvaluator) opponent.getEvaluator()).getFitness() - .1 * pushed + .1 * lost;
-						((LinearEvaluator) opponent.getEvaluator()).setFitness(lFit);
-
-					}
-					numberOfPlies++;
-					Thread.sleep(0);
-				}
-			}
-			catch (InterruptedException e)
-			{
-
-			}
+			MatchStats[] stats = match.play(p1, p2, opening);
+			fitness.add(p1, stats[0]);
+			fitness.add(p2, stats[1]);
+			System.out.print(".");
+			return null;
 		}
 	}
 }
-
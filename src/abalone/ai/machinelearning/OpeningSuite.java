@@ -0,0 +1,229 @@
+package abalone.ai.machinelearning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+import abalone.ai.AbaloneSearchProblem;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.HumanPlayer;
+import abalone.model.Move;
+import abalone.model.Node;
+import abalone.model.Player;
+
+/**
+ * A set of distinct, balanced starting positions for tournament matches, so
+ * that deterministic players do not replay the same game over and over. The
+ * tournaments play every opening with both colours. The suite is used by
+ * Match, MultiThreadedPlay, VirtualThreadPlay (and so RandomMatchTournament),
+ * LockstepTournament, CachedCrossTournament and EngineMatch; KOTournament
+ * and DistributedTournament always start from the initial position.
+ *
+ * The openings are generated by random plies from the starting position. An
+ * opening is kept if no marble has been pushed, if it differs from the
+ * openings kept so far and if it is balanced: the best move of the player to
+ * move, evaluated one ply deep by a reference evaluator and divided by the
+ * largest value of that evaluator, is between -balance and balance.
+ *
+ * The suite is stored in a small binary file (big endian):
+ * <pre>
+ * int magic "ABOS", int version, int openings,
+ * per opening: long first, long second, byte to move, byte lost first, byte lost second
+ * </pre>
+ * (see Position for the fields of an opening).
+ */
+public class OpeningSuite
+{
+	private static final int FILE_MAGIC = 0x41424F53; // "ABOS"
+	private static final int FILE_VERSION = 1;
+
+	// The moves are generated in the order of a hash set of nodes, which
+	// differs from run to run; they are sorted so that a seed gives the same
+	// suite every time.
+	private static final Comparator<Action> MOVE_ORDER = new Comparator<Action>()
+	{
+		@Override
+		public int compare(Action a, Action b)
+		{
+			int c = Long.compare(marbles((Move) a), marbles((Move) b));
+			return (c != 0) ? c : ((Move) a).getDirection().compareTo(((Move) b).getDirection());
+		}
+
+		private long marbles(Move move)
+		{
+			long marbles = 0;
+			for (Node n : move.getMarbleLine().getNodes())
+			{
+				marbles |= 1L << n.getIndex();
+			}
+			return marbles;
+		}
+	};
+
+	private final List<Position> openings;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public OpeningSuite(List<Position> openings)
+	{
+		if (openings.isEmpty())
+		{
+			throw new IllegalArgumentException("an opening suite needs at least one opening");
+		}
+		this.openings = openings;
+	}
+
+	/**
+	 * Generates a suite.
+	 *
+	 * @param evaluator
+	 *            the reference evaluator for the balance
+	 * @param size
+	 *            the number of openings
+	 * @param plies
+	 *            the number of random plies of an opening
+	 * @param balance
+	 *            the largest evaluation of a kept opening, between 0 and 1
+	 */
+	public static OpeningSuite generate(GameLogic logic, LinearEvaluator evaluator, int size, int plies,
+			double balance, Random random)
+	{
+		List<Player> players = new ArrayList<Player>();
+		players.add(new HumanPlayer("first"));
+		players.add(new HumanPlayer("second"));
+		GameState start = logic.initState(logic.initBoard(), players);
+		double bound = evaluator.getBound();
+
+		List<Position> openings = new ArrayList<Position>();
+		Set<String> seen = new HashSet<String>();
+		int attempts = 0;
+		while (openings.size() < size)
+		{
+			if (++attempts > 1000 * size)
+			{
+				throw new RuntimeException("found only " + openings.size() + " of " + size
+						+ " openings; allow more plies or a larger balance");
+			}
+			GameState state = start.clone();
+			for (int ply = 0; ply < plies && logic.getWinner(state) == null; ply++)
+			{
+				List<Action> actions = new AbaloneSearchProblem(state, logic).generateActions(state);
+				Collections.sort(actions, MOVE_ORDER);
+				logic.applyMove(state, (Move) actions.get(random.nextInt(actions.size())));
+			}
+			Position opening = new Position(state, null);
+			if (opening.getLostFirst() + opening.getLostSecond() > 0
+					|| Math.abs(bestMove(logic, evaluator, state)) > balance * bound)
+			{
+				continue;
+			}
+			if (seen.add(Long.toHexString(opening.getFirst()) + " " + Long.toHexString(opening.getSecond()) + " "
+					+ opening.getToMove()))
+			{
+				openings.add(opening);
+			}
+		}
+		return new OpeningSuite(openings);
+	}
+
+	/**
+	 * @return the value of the best move in the state for the player to move
+	 */
+	private static double bestMove(GameLogic logic, LinearEvaluator evaluator, GameState state)
+	{
+		evaluator.setInitialState(state);
+		double best = Double.NEGATIVE_INFINITY;
+		for (Action action : new AbaloneSearchProblem(state, logic).generateActions(state))
+		{
+			GameState child = state.clone();
+			logic.applyMove(child, (Move) action);
+			best = Math.max(best, evaluator.eval(child));
+		}
+		return best;
+	}
+
+	public int size()
+	{
+		return openings.size();
+	}
+
+	public Position get(int i)
+	{
+		return openings.get(i);
+	}
+
+	/**
+	 * @return the openings in turn, starting again with the first after the
+	 *         last; can be called by several threads at the same time
+	 */
+	public Position next()
+	{
+		return openings.get((next.getAndIncrement() & Integer.MAX_VALUE) % openings.size());
+	}
+
+	public void save(File file) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try
+		{
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeInt(openings.size());
+			for (Position p : openings)
+			{
+				out.writeLong(p.getFirst());
+				out.writeLong(p.getSecond());
+				out.writeByte(p.getToMove());
+				out.writeByte(p.getLostFirst());
+				out.writeByte(p.getLostSecond());
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	public static OpeningSuite load(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION)
+			{
+				throw new IOException(file + " is not an opening suite of version " + FILE_VERSION);
+			}
+			int size = in.readInt();
+			List<Position> openings = new ArrayList<Position>(size);
+			for (int i = 0; i < size; i++)
+			{
+				long first = in.readLong();
+				long second = in.readLong();
+				int toMove = in.readByte();
+				int lostFirst = in.readByte();
+				int lostSecond = in.readByte();
+				openings.add(new Position(first, second, toMove, lostFirst, lostSecond, 0.5));
+			}
+			return new OpeningSuite(openings);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+}
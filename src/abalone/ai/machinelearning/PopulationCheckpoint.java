@@ -0,0 +1,173 @@
+package abalone.ai.machinelearning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import abalone.ai.evaluation.LinearEvaluator;
+
+/**
+ * The state of a genetic search of LinearEvaluator weights: the weights and
+ * fitness of every individual, the generation and a seed to continue the
+ * random numbers from. It is stored in a small binary file (big endian):
+ * <pre>
+ * int magic "ABGA", int version, int generation, long seed,
+ * int individuals, int genes, per individual: double fitness, double[genes] weights
+ * </pre>
+ * Only numbers are stored, so a checkpoint can still be read after the
+ * evaluator classes change. A checkpoint is written to a temporary file
+ * first, forced to disk and then renamed, so a crash while saving leaves the
+ * previous checkpoint intact.
+ */
+public class PopulationCheckpoint
+{
+	private static final int FILE_MAGIC = 0x41424741; // "ABGA"
+	private static final int FILE_VERSION = 1;
+
+	private final int generation;
+	private final long seed;
+	private final GeneticPopulation population;
+
+	public PopulationCheckpoint(int generation, long seed, GeneticPopulation population)
+	{
+		this.generation = generation;
+		this.seed = seed;
+		this.population = population;
+	}
+
+	public int getGeneration()
+	{
+		return generation;
+	}
+
+	/**
+	 * The seed for the random numbers of the next generation
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	public GeneticPopulation getPopulation()
+	{
+		return population;
+	}
+
+	public void save(File file) throws IOException
+	{
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream stream = new FileOutputStream(temp);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+		try
+		{
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeInt(generation);
+			out.writeLong(seed);
+			out.writeInt(population.size());
+			out.writeInt(population.isEmpty() ? 0 : population.get(0).getPhenotype().size());
+			for (GeneticIndividual individual : population)
+			{
+				out.writeDouble(individual.getFitness());
+				for (Gene<?> gene : individual.getPhenotype())
+				{
+					out.writeDouble((Double) gene.getValue());
+				}
+			}
+			// the data must be on disk before the rename replaces the
+			// previous checkpoint
+			out.flush();
+			stream.getChannel().force(true);
+		}
+		finally
+		{
+			out.close();
+		}
+		try
+		{
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	public static PopulationCheckpoint load(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION)
+			{
+				throw new IOException(file + " is not a checkpoint of version " + FILE_VERSION);
+			}
+			int generation = in.readInt();
+			long seed = in.readLong();
+			int individuals = in.readInt();
+			int genes = in.readInt();
+			GeneticPopulation population = new GeneticPopulation();
+			for (int i = 0; i < individuals; i++)
+			{
+				double fitness = in.readDouble();
+				Genotype phenotype = new Genotype();
+				for (int j = 0; j < genes; j++)
+				{
+					phenotype.add(new Weight(in.readDouble()));
+				}
+				LinearEvaluator individual = new LinearEvaluator(phenotype);
+				individual.setFitness(fitness);
+				population.add(individual);
+			}
+			return new PopulationCheckpoint(generation, seed, population);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Appends the generation, the fitness and the weights of the best
+	 * individual as one line to a history file, the input of plot.gpl.
+	 */
+	public void appendHistory(File file) throws IOException
+	{
+		GeneticIndividual best = Collections.max(population);
+		StringBuilder line = new StringBuilder();
+		line.append(generation).append(' ').append(best.getFitness());
+		for (Gene<?> gene : best.getPhenotype())
+		{
+			line.append(' ').append(gene.getValue());
+		}
+		PrintWriter out = new PrintWriter(new FileWriter(file, true));
+		try
+		{
+			out.println(line);
+		}
+		finally
+		{
+			out.close();
+		}
+		if (out.checkError())
+		{
+			throw new IOException("cannot write " + file);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package abalone.ai.machinelearning;
+
+import java.util.List;
+
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Board;
+import abalone.model.Node;
+import abalone.model.Player;
+
+/**
+ * A compact copy of a position of a recorded game: the marbles of both players
+ * as bit sets over the node indices, the player to move, the lost marbles and
+ * the result of the game. "First" and "second" are the players in the order
+ * of GameState.getPlayers().
+ */
+public class Position
+{
+	private long first, second;
+	private int toMove;
+	private int lostFirst, lostSecond;
+	private double result;
+
+	public Position(long first, long second, int toMove, int lostFirst, int lostSecond, double result)
+	{
+		this.first = first;
+		this.second = second;
+		this.toMove = toMove;
+		this.lostFirst = lostFirst;
+		this.lostSecond = lostSecond;
+		this.result = result;
+	}
+
+	/**
+	 * @param winner
+	 *            the winner of the game the state is from, or null if it
+	 *            ended undecided
+	 */
+	public Position(GameState s, Player winner)
+	{
+		List<Player> players = s.getPlayers();
+		for (Node n : s.getMarbles(players.get(0)))
+		{
+			first |= 1L << n.getIndex();
+		}
+		for (Node n : s.getMarbles(players.get(1)))
+		{
+			second |= 1L << n.getIndex();
+		}
+		toMove = players.indexOf(s.getCurrentPlayer());
+		lostFirst = s.getMarblesRemoved().get(players.get(0));
+		lostSecond = s.getMarblesRemoved().get(players.get(1));
+		if (winner == null)
+		{
+			result = 0.5;
+		}
+		else
+		{
+			result = (winner == players.get(0)) ? 1 : 0;
+		}
+	}
+
+	/**
+	 * Creates a game state with this position.
+	 */
+	public GameState toState(GameLogic logic, Board board, List<Player> players)
+	{
+		GameState s = logic.initState(board, players);
+		for (Node n : board.getNodes())
+		{
+			if (s.getMarbleOwner(n) != null)
+			{
+				s.removeMarble(n);
+			}
+		}
+		for (Node n : board.getNodes())
+		{
+			long bit = 1L << n.getIndex();
+			if ((first & bit) != 0)
+			{
+				s.setMarble(n, players.get(0));
+			}
+			else if ((second & bit) != 0)
+			{
+				s.setMarble(n, players.get(1));
+			}
+		}
+		s.getMarblesRemoved().put(players.get(0), lostFirst);
+		s.getMarblesRemoved().put(players.get(1), lostSecond);
+		s.setCurrentPlayer(players.get(toMove));
+		return s;
+	}
+
+	public long getFirst()
+	{
+		return first;
+	}
+
+	public long getSecond()
+	{
+		return second;
+	}
+
+	/**
+	 * @return 0 if the first player is to move, 1 if the second player is
+	 */
+	public int getToMove()
+	{
+		return toMove;
+	}
+
+	public int getLostFirst()
+	{
+		return lostFirst;
+	}
+
+	public int getLostSecond()
+	{
+		return lostSecond;
+	}
+
+	/**
+	 * @return the result of the game for the first player: 1 for a win, 0 for
+	 *         a loss, 0.5 if the game ended undecided
+	 */
+	public double getResult()
+	{
+		return result;
+	}
+
+	/**
+	 * @return the result of the game for the player to move
+	 */
+	public double getResultToMove()
+	{
+		return (toMove == 0) ? result : 1 - result;
+	}
+}
@@ -0,0 +1,83 @@
+package abalone.ai.machinelearning;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import abalone.gamestate.GameState;
+import abalone.model.Player;
+
+/**
+ * Reads and writes positions with game results as text, one position per
+ * line:
+ * <pre>
+ * first second toMove lostFirst lostSecond result
+ * </pre>
+ * with the marbles of both players as hexadecimal bit sets (see Position).
+ * Lines starting with # are comments.
+ */
+public class PositionCorpus
+{
+	private PositionCorpus()
+	{
+	}
+
+	/**
+	 * Appends all positions of a game to a corpus file.
+	 */
+	public static void append(File file, List<GameState> positions, Player winner) throws IOException
+	{
+		BufferedWriter out = new BufferedWriter(new FileWriter(file, true));
+		try
+		{
+			for (GameState s : positions)
+			{
+				Position p = new Position(s, winner);
+				out.write(Long.toHexString(p.getFirst()) + " " + Long.toHexString(p.getSecond()) + " " + p.getToMove()
+						+ " " + p.getLostFirst() + " " + p.getLostSecond() + " " + p.getResult());
+				out.newLine();
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	public static List<Position> load(File file) throws IOException
+	{
+		List<Position> positions = new ArrayList<Position>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try
+		{
+			String line;
+			int number = 0;
+			while ((line = in.readLine()) != null)
+			{
+				number++;
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("#"))
+				{
+					continue;
+				}
+				String[] f = line.split("\\s+");
+				if (f.length != 6)
+				{
+					throw new IOException(file + ":" + number + ": expected 6 fields");
+				}
+				positions.add(new Position(Long.parseLong(f[0], 16), Long.parseLong(f[1], 16), Integer.parseInt(f[2]),
+						Integer.parseInt(f[3]), Integer.parseInt(f[4]), Double.parseDouble(f[5])));
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		return positions;
+	}
+}
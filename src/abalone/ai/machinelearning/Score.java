@@ -0,0 +1,82 @@
+package abalone.ai.machinelearning;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of all matches of one individual in a tournament. Matches on
+ * different threads add to striped counters, so they do not contend for one
+ * lock or one variable; the fitness is computed once all matches are
+ * finished.
+ */
+public class Score
+{
+	private final LongAdder matches = new LongAdder();
+	private final LongAdder wins = new LongAdder();
+	private final LongAdder losses = new LongAdder();
+	private final LongAdder pushedMarbles = new LongAdder();
+	private final LongAdder lostMarbles = new LongAdder();
+	// the marbles of the matches that were stopped at the ply limit
+	private final LongAdder stoppedPushed = new LongAdder();
+	private final LongAdder stoppedLost = new LongAdder();
+
+	public void add(MatchStats stats)
+	{
+		matches.increment();
+		pushedMarbles.add(stats.getPushedMarbles());
+		lostMarbles.add(stats.getLostMarbles());
+		if (stats.isWinner())
+		{
+			wins.increment();
+		}
+		else if (stats.isLoser())
+		{
+			losses.increment();
+		}
+		else
+		{
+			stoppedPushed.add(stats.getPushedMarbles());
+			stoppedLost.add(stats.getLostMarbles());
+		}
+	}
+
+	public long getMatches()
+	{
+		return matches.sum();
+	}
+
+	public long getWins()
+	{
+		return wins.sum();
+	}
+
+	public long getLosses()
+	{
+		return losses.sum();
+	}
+
+	public long getPushedMarbles()
+	{
+		return pushedMarbles.sum();
+	}
+
+	public long getLostMarbles()
+	{
+		return lostMarbles.sum();
+	}
+
+	/**
+	 * @return the sum of MatchStats.getFitness() over all matches; only
+	 *         exact once no match is adding anymore
+	 */
+	public double getFitness()
+	{
+		return wins.sum() - losses.sum() + .1 * stoppedPushed.sum() - .1 * stoppedLost.sum();
+	}
+
+	@Override
+	public String toString()
+	{
+		return getMatches() + " matches, " + getWins() + " won, " + getLosses() + " lost, " + getPushedMarbles()
+				+ " marbles pushed, " + getLostMarbles() + " marbles lost";
+	}
+}
@@ -0,0 +1,132 @@
+package abalone.ai.machinelearning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+import abalone.ai.AbaloneSearchProblem;
+import abalone.ai.Ai;
+import abalone.ai.ConfigurableAI;
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Move;
+import abalone.model.Player;
+
+/**
+ * Plays games between two AIs and records the positions, as training data.
+ * A part of the moves can be played at random, so that games between the same
+ * players differ.
+ */
+public class SelfPlay
+{
+	private GameLogic logic;
+	private int maxPlies = 200;
+	private double exploration = 0;
+	private Random random = new Random();
+
+	public SelfPlay(GameLogic logic)
+	{
+		this.logic = logic;
+	}
+
+	/**
+	 * The number of plies after which a game is ended undecided
+	 */
+	public void setMaxPlies(int maxPlies)
+	{
+		this.maxPlies = maxPlies;
+	}
+
+	/**
+	 * The probability that a move is chosen at random instead of by the AI
+	 */
+	public void setExploration(double exploration)
+	{
+		this.exploration = exploration;
+	}
+
+	public void setRandom(Random random)
+	{
+		this.random = random;
+	}
+
+	/**
+	 * Plays one game.
+	 * 
+	 * @param positions
+	 *            receives a copy of the position before every move, or null
+	 * @return the winner, or null if the game ended undecided
+	 */
+	public Player play(Ai first, Ai second, List<GameState> positions) throws InterruptedException
+	{
+		return play(first, second, null, positions);
+	}
+
+	/**
+	 * Plays one game from a given position, e.g. an opening.
+	 * 
+	 * @param start
+	 *            the position to start from, or null for the starting
+	 *            position; the first player gets the marbles of the first
+	 *            player of the position
+	 * @param positions
+	 *            receives a copy of the position before every move, or null
+	 * @return the winner, or null if the game ended undecided
+	 */
+	public Player play(Ai first, Ai second, Position start, List<GameState> positions) throws InterruptedException
+	{
+		return play(first, second, start, positions, null);
+	}
+
+	/**
+	 * Plays one game from a given position and records the values of the
+	 * searches as well.
+	 * 
+	 * @param scores
+	 *            receives for every position the value of the search of the
+	 *            player to move (see ConfigurableAI.getLastValue()), NaN if
+	 *            the move was played at random or the player is no
+	 *            ConfigurableAI; or null
+	 * @return the winner, or null if the game ended undecided
+	 */
+	public Player play(Ai first, Ai second, Position start, List<GameState> positions, List<Double> scores)
+			throws InterruptedException
+	{
+		List<Player> players = new ArrayList<Player>();
+		players.add(first);
+		players.add(second);
+		GameState state = (start == null) ? logic.initState(logic.initBoard(), players) : start.toState(logic,
+				logic.initBoard(), players);
+
+		for (int ply = 0; ply < maxPlies && logic.getWinner(state) == null; ply++)
+		{
+			if (positions != null)
+			{
+				positions.add(state.clone());
+			}
+			Move move;
+			double score = Double.NaN;
+			if (exploration > 0 && random.nextDouble() < exploration)
+			{
+				List<Action> actions = new AbaloneSearchProblem(state, logic).generateActions(state);
+				move = (Move) actions.get(random.nextInt(actions.size()));
+			}
+			else
+			{
+				Ai ai = (Ai) state.getCurrentPlayer();
+				move = ai.decide(state);
+				if (ai instanceof ConfigurableAI)
+				{
+					score = ((ConfigurableAI) ai).getLastValue();
+				}
+			}
+			if (scores != null)
+			{
+				scores.add(score);
+			}
+			logic.applyMove(state, move);
+		}
+		return logic.getWinner(state);
+	}
+}
@@ -0,0 +1,247 @@
+package abalone.ai.machinelearning;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import abalone.ai.ConfigurableAI;
+import abalone.ai.SearchConfig;
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Player;
+
+/**
+ * Plays self-play games on several threads and writes every position with
+ * the value of the search and the result of the game into TrainingShards,
+ * as training data for evaluators. Every thread takes the next game until
+ * all games are played, and writes its own shards (worker-t-n.bin).
+ *
+ * Both players of a game are ConfigurableAIs with the configuration given as
+ * properties (see SearchConfig.load()), so every game gets its own players
+ * and evaluators. The games start from hashed states, so the configuration
+ * may use any hashing. When a worker fails, the other workers are stopped
+ * and run() throws.
+ */
+public class SelfPlayPipeline
+{
+	private final GameLogic logic;
+	private final Properties ai;
+	private final File directory;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int games = 100;
+	private int maxPlies = 200;
+	private double exploration = 0.1;
+	private int recordsPerShard = 1 << 20;
+	private long seed = System.currentTimeMillis();
+	private boolean verbose = true;
+
+	private final AtomicInteger nextGame = new AtomicInteger();
+	private final AtomicLong positions = new AtomicLong();
+
+	/**
+	 * @param directory
+	 *            the directory the shards are written to
+	 */
+	public SelfPlayPipeline(GameLogic logic, Properties ai, File directory)
+	{
+		this.logic = logic;
+		this.ai = ai;
+		this.directory = directory;
+	}
+
+	public void setThreads(int threads)
+	{
+		this.threads = threads;
+	}
+
+	public void setGames(int games)
+	{
+		this.games = games;
+	}
+
+	/**
+	 * The number of plies after which a game ends undecided
+	 */
+	public void setMaxPlies(int maxPlies)
+	{
+		this.maxPlies = maxPlies;
+	}
+
+	/**
+	 * The probability that a move is played at random, so the games differ
+	 */
+	public void setExploration(double exploration)
+	{
+		this.exploration = exploration;
+	}
+
+	public void setRecordsPerShard(int recordsPerShard)
+	{
+		this.recordsPerShard = recordsPerShard;
+	}
+
+	/**
+	 * The seed of the random moves; thread t uses seed + t
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Whether the progress and the positions per second are printed
+	 */
+	public void setVerbose(boolean verbose)
+	{
+		this.verbose = verbose;
+	}
+
+	/**
+	 * Plays all games and blocks until they are written.
+	 *
+	 * @return the number of positions written
+	 */
+	public long run() throws InterruptedException
+	{
+		if (!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new RuntimeException("cannot create " + directory);
+		}
+		nextGame.set(0);
+		positions.set(0);
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		final List<Thread> workers = new ArrayList<Thread>();
+		Thread.UncaughtExceptionHandler stopAll = new Thread.UncaughtExceptionHandler()
+		{
+			@Override
+			public void uncaughtException(Thread t, Throwable e)
+			{
+				failures.add(e);
+				// the games of the other workers would be thrown away
+				for (Thread worker : workers)
+				{
+					worker.interrupt();
+				}
+			}
+		};
+		for (int t = 0; t < threads; t++)
+		{
+			Thread worker = new Thread(createWorker(t), "self-play " + t);
+			worker.setUncaughtExceptionHandler(stopAll);
+			workers.add(worker);
+		}
+		for (Thread worker : workers)
+		{
+			worker.start();
+		}
+
+		long start = System.currentTimeMillis();
+		try
+		{
+			for (Thread worker : workers)
+			{
+				while (worker.isAlive())
+				{
+					worker.join(10000);
+					if (verbose && worker.isAlive())
+					{
+						report(start);
+					}
+				}
+			}
+		}
+		finally
+		{
+			for (Thread worker : workers)
+			{
+				worker.interrupt();
+			}
+		}
+		if (!failures.isEmpty())
+		{
+			throw new RuntimeException("a self-play worker failed", failures.get(0));
+		}
+		if (verbose)
+		{
+			report(start);
+		}
+		return positions.get();
+	}
+
+	private void report(long start)
+	{
+		long time = Math.max(1, System.currentTimeMillis() - start);
+		System.out.println(Math.min(nextGame.get(), games) + " of " + games + " games, " + positions.get()
+				+ " positions, " + (1000 * positions.get() / time) + " positions/s");
+	}
+
+	private Runnable createWorker(final int index)
+	{
+		return new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				SelfPlay selfPlay = new SelfPlay(logic);
+				selfPlay.setMaxPlies(maxPlies);
+				selfPlay.setExploration(exploration);
+				selfPlay.setRandom(new Random(seed + index));
+				ShardWriter writer = new ShardWriter(directory, "worker-" + index);
+				writer.setMaxRecords(recordsPerShard);
+				try
+				{
+					try
+					{
+						int game;
+						while (!Thread.currentThread().isInterrupted()
+								&& (game = nextGame.getAndIncrement()) < games)
+						{
+							play(selfPlay, writer, game);
+						}
+					}
+					finally
+					{
+						writer.close();
+					}
+				}
+				catch (InterruptedException e)
+				{
+					// stopped
+				}
+				catch (IOException e)
+				{
+					throw new RuntimeException(e);
+				}
+			}
+		};
+	}
+
+	private void play(SelfPlay selfPlay, ShardWriter writer, int game) throws InterruptedException, IOException
+	{
+		ConfigurableAI first = new ConfigurableAI(logic, SearchConfig.load(ai));
+		ConfigurableAI second = new ConfigurableAI(logic, SearchConfig.load(ai));
+		List<GameState> states = new ArrayList<GameState>();
+		List<Double> scores = new ArrayList<Double>();
+		Player winner;
+		try
+		{
+			winner = selfPlay.play(first, second, null, states, scores);
+		}
+		finally
+		{
+			first.close();
+			second.close();
+		}
+		for (int ply = 0; ply < states.size(); ply++)
+		{
+			writer.write(new Position(states.get(ply), winner), scores.get(ply).floatValue(), ply, game);
+		}
+		positions.addAndGet(states.size());
+	}
+}
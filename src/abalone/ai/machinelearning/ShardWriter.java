@@ -0,0 +1,126 @@
+package abalone.ai.machinelearning;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes training positions into TrainingShards through a file channel. The
+ * records are gathered in a buffer and written in large blocks. When a shard
+ * holds the maximum number of records, the writer continues with the next
+ * shard: the shards are named prefix-0.bin, prefix-1.bin, and so on.
+ *
+ * A writer is not thread safe; every thread of a pipeline has its own writer
+ * with its own prefix.
+ */
+public class ShardWriter
+{
+	private final File directory;
+	private final String prefix;
+	private int maxRecords = 1 << 20;
+
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(2048 * TrainingShard.RECORD_SIZE);
+	private FileChannel channel;
+	private int shards;
+	private int records;
+	private long written;
+
+	public ShardWriter(File directory, String prefix)
+	{
+		this.directory = directory;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * The number of records per shard, so that a shard can be mapped at once
+	 * (at most 2 GB)
+	 */
+	public void setMaxRecords(int maxRecords)
+	{
+		this.maxRecords = maxRecords;
+	}
+
+	/**
+	 * Writes a record.
+	 *
+	 * @param score
+	 *            the value of the search of the player to move, or NaN
+	 * @param ply
+	 *            the number of plies played before the position
+	 * @param game
+	 *            the number of the game
+	 */
+	public void write(Position position, float score, int ply, int game) throws IOException
+	{
+		if (channel == null || records == maxRecords)
+		{
+			nextShard();
+		}
+		if (buffer.remaining() < TrainingShard.RECORD_SIZE)
+		{
+			flush();
+		}
+		buffer.putLong(position.getFirst());
+		buffer.putLong(position.getSecond());
+		buffer.put((byte) position.getToMove());
+		buffer.put((byte) position.getLostFirst());
+		buffer.put((byte) position.getLostSecond());
+		buffer.put((byte) Math.round(2 * position.getResult()));
+		buffer.putFloat(score);
+		buffer.putInt(ply);
+		buffer.putInt(game);
+		records++;
+		written++;
+	}
+
+	/**
+	 * @return the number of records written by this writer
+	 */
+	public long getWritten()
+	{
+		return written;
+	}
+
+	private void nextShard() throws IOException
+	{
+		close();
+		File file = new File(directory, prefix + "-" + shards++ + ".bin");
+		channel = new FileOutputStream(file).getChannel();
+		records = 0;
+		TrainingShard.putHeader(buffer);
+	}
+
+	/**
+	 * Writes the buffered records to the current shard.
+	 */
+	public void flush() throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the buffered records and closes the current shard.
+	 */
+	public void close() throws IOException
+	{
+		if (channel != null)
+		{
+			try
+			{
+				flush();
+			}
+			finally
+			{
+				channel.close();
+				channel = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,323 @@
+package abalone.ai.machinelearning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import abalone.ai.AbaloneSearchProblem;
+import abalone.ai.Ai;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.gamelogic.GameLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Move;
+
+/**
+ * A cheap estimate of the fitness of LinearEvaluator weights, without playing
+ * games. For a fixed set of reference positions, the two ply search trees of
+ * the SimpleAI are recorded once: the function results of every leaf, seen
+ * from the player to move at the root, plus the move a teacher (usually a
+ * deeper search) chose. New weights are scored by searching the recorded
+ * trees again with the new weights, which only takes a few multiplications
+ * per leaf.
+ *
+ * The score of one position is the fraction of the other moves that the
+ * weights value below the move of the teacher, so 1 means the weights choose
+ * the same move. The fitness is the mean over all positions.
+ *
+ * The function results are small integers and stored as bytes.
+ */
+public class SurrogateFitness
+{
+	private static final int FILE_MAGIC = 0x53555252; // "SURR"
+	private static final int N = LinearEvaluator.NUMBER_OF_FUNCTIONS;
+
+	// leaves[l * N + i] is function i of leaf l
+	private byte[] leaves;
+	// the leaves of root move m are moveStart[m] .. moveStart[m + 1] - 1
+	private int[] moveStart;
+	// the root moves of position p are positionStart[p] .. positionStart[p + 1] - 1
+	private int[] positionStart;
+	// the index of the teacher's move among the moves of a position
+	private int[] target;
+
+	private SurrogateFitness(byte[] leaves, int[] moveStart, int[] positionStart, int[] target)
+	{
+		this.leaves = leaves;
+		this.moveStart = moveStart;
+		this.positionStart = positionStart;
+		this.target = target;
+	}
+
+	/**
+	 * Records the search trees of the given positions.
+	 *
+	 * @param teacher
+	 *            the AI whose moves are the reference
+	 */
+	public static SurrogateFitness record(List<GameState> positions, Ai teacher, GameLogic logic) throws InterruptedException
+	{
+		ByteArray leaves = new ByteArray();
+		IntArray moveStart = new IntArray();
+		IntArray positionStart = new IntArray();
+		IntArray target = new IntArray();
+		LinearEvaluator extractor = new LinearEvaluator();
+		int[] f = new int[N];
+
+		for (GameState root : positions)
+		{
+			List<Action> moves = new AbaloneSearchProblem(root, logic).generateActions(root);
+			if (moves.size() < 2)
+			{
+				continue;
+			}
+			GameState chosen = root.clone();
+			logic.applyMove(chosen, teacher.decide(root));
+			Position chosenPosition = new Position(chosen, null);
+
+			extractor.setInitialState(root);
+			int targetMove = -1;
+			positionStart.add(moveStart.size());
+			for (int m = 0; m < moves.size(); m++)
+			{
+				moveStart.add(leaves.size() / N);
+				GameState child = root.clone();
+				logic.applyMove(child, (Move) moves.get(m));
+				Position p = new Position(child, null);
+				if (p.getFirst() == chosenPosition.getFirst() && p.getSecond() == chosenPosition.getSecond())
+				{
+					targetMove = m;
+				}
+
+				List<Action> replies = (logic.getWinner(child) == null) ? new AbaloneSearchProblem(child, logic)
+						.generateActions(child) : null;
+				if (replies == null || replies.isEmpty())
+				{
+					extractor.extractFunctionResults(child, f);
+					leaves.add(f);
+					continue;
+				}
+				for (Action reply : replies)
+				{
+					GameState leaf = child.clone();
+					logic.applyMove(leaf, (Move) reply);
+					extractor.extractFunctionResults(leaf, f);
+					leaves.add(f);
+				}
+			}
+			if (targetMove < 0)
+			{
+				throw new RuntimeException("the move of the teacher is not among the generated moves");
+			}
+			target.add(targetMove);
+		}
+		moveStart.add(leaves.size() / N);
+		positionStart.add(moveStart.size() - 1);
+		return new SurrogateFitness(leaves.toArray(), moveStart.toArray(), positionStart.toArray(), target.toArray());
+	}
+
+	/**
+	 * @return the number of recorded positions
+	 */
+	public int size()
+	{
+		return target.length;
+	}
+
+	/**
+	 * @param phenotype
+	 *            the weights of a LinearEvaluator
+	 * @return the mean score of the weights over all positions, between 0
+	 *         and 1
+	 */
+	public double score(Genotype phenotype)
+	{
+		double[] w = new double[N];
+		for (int i = 0; i < N; i++)
+		{
+			w[i] = (Double) ((Gene<?>) phenotype.get(i)).getValue() * LinearEvaluator.getScale(i);
+		}
+
+		double total = 0;
+		double[] values = new double[64];
+		for (int p = 0; p < target.length; p++)
+		{
+			int firstMove = positionStart[p];
+			int moves = positionStart[p + 1] - firstMove;
+			if (values.length < moves)
+			{
+				values = new double[moves];
+			}
+			for (int m = 0; m < moves; m++)
+			{
+				// the opponent chooses the reply that is worst for the root
+				// player
+				double min = Double.POSITIVE_INFINITY;
+				for (int l = moveStart[firstMove + m]; l < moveStart[firstMove + m + 1]; l++)
+				{
+					int offset = l * N;
+					double v = 0;
+					for (int i = 0; i < N; i++)
+					{
+						v += w[i] * leaves[offset + i];
+					}
+					if (v < min)
+					{
+						min = v;
+					}
+				}
+				values[m] = min;
+			}
+			double targetValue = values[target[p]];
+			int below = 0;
+			for (int m = 0; m < moves; m++)
+			{
+				if (values[m] < targetValue)
+				{
+					below++;
+				}
+			}
+			total += below / (double) (moves - 1);
+		}
+		return total / target.length;
+	}
+
+	public void save(File file) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try
+		{
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(N);
+			writeInts(out, target);
+			writeInts(out, positionStart);
+			writeInts(out, moveStart);
+			out.writeInt(leaves.length);
+			out.write(leaves);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	public static SurrogateFitness load(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			if (in.readInt() != FILE_MAGIC || in.readInt() != N)
+			{
+				throw new IOException(file + " is not a reference set for " + N + " functions");
+			}
+			int[] target = readInts(in);
+			int[] positionStart = readInts(in);
+			int[] moveStart = readInts(in);
+			byte[] leaves = new byte[in.readInt()];
+			in.readFully(leaves);
+			return new SurrogateFitness(leaves, moveStart, positionStart, target);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	private static void writeInts(DataOutputStream out, int[] a) throws IOException
+	{
+		out.writeInt(a.length);
+		for (int i : a)
+		{
+			out.writeInt(i);
+		}
+	}
+
+	private static int[] readInts(DataInputStream in) throws IOException
+	{
+		int[] a = new int[in.readInt()];
+		for (int i = 0; i < a.length; i++)
+		{
+			a[i] = in.readInt();
+		}
+		return a;
+	}
+
+	/**
+	 * A growing array of bytes
+	 */
+	private static class ByteArray
+	{
+		private byte[] data = new byte[1 << 16];
+		private int size;
+
+		void add(int[] values)
+		{
+			if (size + values.length > data.length)
+			{
+				byte[] larger = new byte[2 * data.length];
+				System.arraycopy(data, 0, larger, 0, size);
+				data = larger;
+			}
+			for (int v : values)
+			{
+				if (v < Byte.MIN_VALUE || v > Byte.MAX_VALUE)
+				{
+					throw new RuntimeException("function result " + v + " does not fit in a byte");
+				}
+				data[size++] = (byte) v;
+			}
+		}
+
+		int size()
+		{
+			return size;
+		}
+
+		byte[] toArray()
+		{
+			byte[] a = new byte[size];
+			System.arraycopy(data, 0, a, 0, size);
+			return a;
+		}
+	}
+
+	/**
+	 * A growing array of ints
+	 */
+	private static class IntArray
+	{
+		private int[] data = new int[1024];
+		private int size;
+
+		void add(int value)
+		{
+			if (size == data.length)
+			{
+				int[] larger = new int[2 * data.length];
+				System.arraycopy(data, 0, larger, 0, size);
+				data = larger;
+			}
+			data[size++] = value;
+		}
+
+		int size()
+		{
+			return size;
+		}
+
+		int[] toArray()
+		{
+			int[] a = new int[size];
+			System.arraycopy(data, 0, a, 0, size);
+			return a;
+		}
+	}
+}
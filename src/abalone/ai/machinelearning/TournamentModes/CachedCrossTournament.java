@@ -0,0 +1,258 @@
+package abalone.ai.machinelearning.TournamentModes;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.FitnessEvaluator;
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import abalone.ai.machinelearning.Adjudicator;
+import abalone.ai.machinelearning.Match;
+import abalone.ai.machinelearning.MatchStats;
+import abalone.ai.machinelearning.OpeningSuite;
+import abalone.ai.machinelearning.Position;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+/**
+ * A round robin like the CrossTournament that remembers the results of its
+ * matches by the weights of both players. The survivors of a generation keep
+ * their weights, so their matches against each other are not played again;
+ * only the matches of new or mutated individuals are played, in parallel.
+ *
+ * The fitness of an individual is set to the sum of the fitness of its
+ * matches against the current population (see MatchStats.getFitness()).
+ * With an OpeningSuite a match is a pair of games from the same opening, one
+ * with either player first.
+ */
+public class CachedCrossTournament implements FitnessEvaluator
+{
+	private Match match;
+	// the results of both players of a match, by the hashes of their weights:
+	// the statistics of the first player at the even indices, of the second
+	// player at the odd indices, one pair per game
+	private Map<PairKey, MatchStats[]> results = new ConcurrentHashMap<PairKey, MatchStats[]>();
+	private int played, reused;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private OpeningSuite openings;
+
+	public CachedCrossTournament(int plyLvl)
+	{
+		match = new Match(new StandardAbaloneLogic(), plyLvl);
+	}
+
+	/**
+	 * The number of matches that are played at the same time, by default one
+	 * per core
+	 */
+	public void setThreads(int threads)
+	{
+		this.threads = threads;
+	}
+
+	/**
+	 * The adjudicator that may end a match before the ply limit; by default
+	 * none, so every match is played to the end
+	 */
+	public void setAdjudicator(Adjudicator adjudicator)
+	{
+		match.setAdjudicator(adjudicator);
+	}
+
+	/**
+	 * The openings the matches start from; without a suite (the default) a
+	 * match is a single game from the starting position
+	 */
+	public void setOpenings(OpeningSuite openings)
+	{
+		this.openings = openings;
+	}
+
+	@Override
+	public GeneticPopulation eval(GeneticPopulation pop) throws InterruptedException
+	{
+		long[] hashes = new long[pop.size()];
+		for (int i = 0; i < pop.size(); i++)
+		{
+			hashes[i] = hash(pop.get(i).getPhenotype());
+		}
+
+		List<Callable<Object>> missing = new ArrayList<Callable<Object>>();
+		Set<PairKey> current = new HashSet<PairKey>();
+		for (int i = 0; i < pop.size(); i++)
+		{
+			for (int j = i + 1; j < pop.size(); j++)
+			{
+				final PairKey key = new PairKey(hashes[i], hashes[j]);
+				if (results.containsKey(key) || !current.add(key))
+				{
+					reused++;
+					continue;
+				}
+				// the player with the smaller hash plays first
+				final GeneticIndividual p1 = pop.get(hashes[i] <= hashes[j] ? i : j);
+				final GeneticIndividual p2 = pop.get(hashes[i] <= hashes[j] ? j : i);
+				final Position opening = (openings == null) ? null : openings.next();
+				missing.add(new Callable<Object>()
+				{
+					@Override
+					public Object call() throws InterruptedException
+					{
+						results.put(key, play(p1, p2, opening));
+						return null;
+					}
+				});
+			}
+		}
+		played += missing.size();
+		run(missing);
+
+		for (int i = 0; i < pop.size(); i++)
+		{
+			double fitness = 0;
+			for (int j = 0; j < pop.size(); j++)
+			{
+				if (i != j)
+				{
+					fitness += getFitness(hashes[i], hashes[j]);
+				}
+			}
+			pop.get(i).setFitness(fitness);
+		}
+
+		// forget the matches of individuals that died out
+		Set<PairKey> alive = new HashSet<PairKey>();
+		for (int i = 0; i < pop.size(); i++)
+		{
+			for (int j = i + 1; j < pop.size(); j++)
+			{
+				alive.add(new PairKey(hashes[i], hashes[j]));
+			}
+		}
+		for (Iterator<PairKey> it = results.keySet().iterator(); it.hasNext();)
+		{
+			if (!alive.contains(it.next()))
+			{
+				it.remove();
+			}
+		}
+		return pop;
+	}
+
+	/**
+	 * Plays a match, as a pair of games if there is an opening.
+	 */
+	private MatchStats[] play(GeneticIndividual p1, GeneticIndividual p2, Position opening)
+			throws InterruptedException
+	{
+		if (opening == null)
+		{
+			return match.play(p1, p2);
+		}
+		MatchStats[] game1 = match.play(p1, p2, opening);
+		MatchStats[] game2 = match.play(p2, p1, opening);
+		return new MatchStats[] { game1[0], game1[1], game2[1], game2[0] };
+	}
+
+	/**
+	 * @return the fitness of the individual with weights a in its match
+	 *         against the individual with weights b
+	 */
+	private double getFitness(long a, long b)
+	{
+		MatchStats[] stats = results.get(new PairKey(a, b));
+		double fitness = 0;
+		for (int k = (a <= b) ? 0 : 1; k < stats.length; k += 2)
+		{
+			fitness += stats[k].getFitness();
+		}
+		return fitness;
+	}
+
+	private void run(List<Callable<Object>> matches) throws InterruptedException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try
+		{
+			for (Future<Object> result : pool.invokeAll(matches))
+			{
+				result.get();
+			}
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return the number of matches played so far
+	 */
+	public int getPlayed()
+	{
+		return played;
+	}
+
+	/**
+	 * @return the number of matches whose result was reused so far
+	 */
+	public int getReused()
+	{
+		return reused;
+	}
+
+	/**
+	 * @return a hash of the weights, equal for equal weights
+	 */
+	private static long hash(Genotype phenotype)
+	{
+		long h = 0xCBF29CE484222325L;
+		for (Gene<?> gene : phenotype)
+		{
+			h = (h ^ Double.doubleToLongBits((Double) gene.getValue())) * 0x100000001B3L;
+		}
+		return h;
+	}
+
+	/**
+	 * The hashes of the weights of both players of a match; the player with
+	 * the smaller hash is the first player of the match.
+	 */
+	private static class PairKey
+	{
+		private final long first, second;
+
+		PairKey(long a, long b)
+		{
+			first = Math.min(a, b);
+			second = Math.max(a, b);
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			return (o instanceof PairKey) && ((PairKey) o).first == first && ((PairKey) o).second == second;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (int) (first ^ (first >>> 32) ^ 31 * (second ^ (second >>> 32)));
+		}
+	}
+}
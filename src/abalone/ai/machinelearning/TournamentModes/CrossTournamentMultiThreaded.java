@@ -31,7 +31,7 @@ public class CrossTournamentMultiThreaded implements FitnessEvaluator
 	}
 
 	@Override
-	public GeneticPopulation eval(GeneticPopulation aPop)
+	public GeneticPopulation eval(GeneticPopulation aPop) throws InterruptedException
 	{
 		// The individuals will probably play multiple matches. Therefore, the
 		// gathered
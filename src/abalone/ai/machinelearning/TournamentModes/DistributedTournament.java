@@ -0,0 +1,341 @@
+package abalone.ai.machinelearning.TournamentModes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.FitnessEvaluator;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+import abalone.ai.machinelearning.FitnessCollector;
+import abalone.ai.machinelearning.MatchProtocol;
+import abalone.ai.machinelearning.MatchProtocol.MatchSpec;
+import abalone.ai.machinelearning.MatchStats;
+import abalone.gamelogic.GameLogic;
+
+/**
+ * A round robin like the CrossTournamentMultiThreaded whose matches are
+ * played by TournamentWorkers on other machines (or other processes on this
+ * machine). The coordinator listens on a port; every connection of a worker
+ * takes the next match from a common queue, so faster machines play more
+ * matches. If a connection breaks or a worker does not answer within the
+ * timeout, its match is put back in the queue for another worker. A match
+ * that is lost this way more often than the maximum number of attempts,
+ * e.g. because it takes longer than the timeout on every worker, fails the
+ * evaluation.
+ *
+ * The match protocol does not carry openings, so the workers play every
+ * match from the initial position; an OpeningSuite cannot be used here.
+ */
+public class DistributedTournament implements FitnessEvaluator
+{
+	private final ServerSocket server;
+	private final String logicClass;
+	private final int plyLvl;
+	private int timeout = 10 * 60 * 1000;
+	private int maxAttempts = 3;
+
+	private final LinkedBlockingQueue<Task> pending = new LinkedBlockingQueue<Task>();
+	private final AtomicInteger workers = new AtomicInteger();
+	private final List<Thread> threads = new ArrayList<Thread>();
+
+	/**
+	 * A match of the current evaluation
+	 */
+	private static class Task
+	{
+		private final MatchSpec spec;
+		private final Round round;
+		// the number of workers that lost the match; only changed by the
+		// worker thread that holds the task
+		private int failedAttempts;
+
+		Task(MatchSpec spec, Round round)
+		{
+			this.spec = spec;
+			this.round = round;
+		}
+	}
+
+	/**
+	 * The results of one evaluation
+	 */
+	private static class Round
+	{
+		private final MatchStats[][] results;
+		private final CountDownLatch remaining;
+		private volatile String failure;
+
+		Round(int matches)
+		{
+			results = new MatchStats[matches][];
+			remaining = new CountDownLatch(matches);
+		}
+	}
+
+	/**
+	 * Starts to accept workers on the given port.
+	 *
+	 * @param logic
+	 *            the workers create an instance of the class of this logic
+	 */
+	public DistributedTournament(int port, GameLogic logic, int plyLvl) throws IOException
+	{
+		this.server = new ServerSocket(port);
+		this.logicClass = logic.getClass().getName();
+		this.plyLvl = plyLvl;
+
+		Thread acceptor = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				accept();
+			}
+		}, "tournament coordinator");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * The time in milliseconds a worker may take for a match before its
+	 * match is given to another worker
+	 */
+	public void setTimeout(int timeout)
+	{
+		this.timeout = timeout;
+	}
+
+	/**
+	 * The number of workers that may lose a match, by a broken connection or
+	 * the timeout, before the evaluation fails
+	 */
+	public void setMaxAttempts(int maxAttempts)
+	{
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * @return the port the workers connect to, e.g. when it was chosen by the
+	 *         system (port 0)
+	 */
+	public int getPort()
+	{
+		return server.getLocalPort();
+	}
+
+	/**
+	 * @return the number of connected workers
+	 */
+	public int getWorkers()
+	{
+		return workers.get();
+	}
+
+	@Override
+	public GeneticPopulation eval(GeneticPopulation pop) throws InterruptedException
+	{
+		List<MatchSpec> specs = new ArrayList<MatchSpec>();
+		List<int[]> players = new ArrayList<int[]>();
+		for (int i = 0; i < pop.size(); i++)
+		{
+			for (int j = i + 1; j < pop.size(); j++)
+			{
+				specs.add(new MatchSpec(specs.size(), logicClass, plyLvl, pop.get(i).getPhenotype(), pop.get(j)
+						.getPhenotype()));
+				players.add(new int[] { i, j });
+			}
+		}
+
+		Round round = new Round(specs.size());
+		for (MatchSpec spec : specs)
+		{
+			pending.add(new Task(spec, round));
+		}
+		if (workers.get() == 0)
+		{
+			System.out.println("waiting for workers on port " + server.getLocalPort());
+		}
+		try
+		{
+			while (!round.remaining.await(1, TimeUnit.SECONDS))
+			{
+				if (round.failure != null)
+				{
+					throw new RuntimeException(round.failure);
+				}
+			}
+		}
+		finally
+		{
+			pending.clear();
+		}
+
+		FitnessCollector fitness = new FitnessCollector();
+		for (int k = 0; k < specs.size(); k++)
+		{
+			fitness.add(pop.get(players.get(k)[0]), round.results[k][0]);
+			fitness.add(pop.get(players.get(k)[1]), round.results[k][1]);
+		}
+		fitness.apply();
+		return pop;
+	}
+
+	/**
+	 * Stops accepting workers and shuts the connected workers down.
+	 */
+	public void close() throws IOException
+	{
+		server.close();
+		synchronized (threads)
+		{
+			for (Thread t : threads)
+			{
+				t.interrupt();
+			}
+		}
+	}
+
+	private void accept()
+	{
+		while (!server.isClosed())
+		{
+			final Socket socket;
+			try
+			{
+				socket = server.accept();
+			}
+			catch (IOException e)
+			{
+				// closed
+				return;
+			}
+			Thread t = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					serve(socket);
+				}
+			}, "tournament worker " + socket.getRemoteSocketAddress());
+			t.setDaemon(true);
+			synchronized (threads)
+			{
+				threads.add(t);
+			}
+			t.start();
+		}
+	}
+
+	/**
+	 * Sends matches to one worker until its connection breaks.
+	 */
+	private void serve(Socket socket)
+	{
+		Task task = null;
+		String lost = "closed";
+		DataOutputStream out = null;
+		try
+		{
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(timeout);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			MatchProtocol.readHello(in);
+			workers.incrementAndGet();
+			try
+			{
+				while (true)
+				{
+					task = pending.take();
+					if (task.round.failure != null)
+					{
+						// left over from an evaluation that failed
+						task = null;
+						continue;
+					}
+					MatchProtocol.writeMatch(out, task.spec);
+					byte type = in.readByte();
+					int id = in.readInt();
+					if (id != task.spec.getId())
+					{
+						throw new IOException("result of match " + id + " instead of " + task.spec.getId());
+					}
+					if (type == MatchProtocol.RESULT)
+					{
+						task.round.results[id] = MatchProtocol.readResult(in);
+						task.round.remaining.countDown();
+					}
+					else if (type == MatchProtocol.ERROR)
+					{
+						// the match itself fails, another worker would fail as well
+						task.round.failure = "match " + id + " failed on " + socket.getRemoteSocketAddress() + ": "
+								+ in.readUTF();
+					}
+					else
+					{
+						throw new IOException("unexpected message " + type);
+					}
+					task = null;
+				}
+			}
+			finally
+			{
+				workers.decrementAndGet();
+			}
+		}
+		catch (IOException e)
+		{
+			lost = e.toString();
+			System.out.println("lost worker " + socket.getRemoteSocketAddress() + ": " + e);
+		}
+		catch (InterruptedException e)
+		{
+			// closed
+			if (out != null)
+			{
+				try
+				{
+					out.writeByte(MatchProtocol.SHUTDOWN);
+					out.flush();
+				}
+				catch (IOException ignored)
+				{
+				}
+			}
+		}
+		finally
+		{
+			if (task != null && ++task.failedAttempts >= maxAttempts)
+			{
+				task.round.failure = "match " + task.spec.getId() + " was lost by " + task.failedAttempts
+						+ " workers, last by " + socket.getRemoteSocketAddress() + ": " + lost;
+			}
+			else if (task != null)
+			{
+				// give the match to another worker
+				pending.add(task);
+			}
+			try
+			{
+				socket.close();
+			}
+			catch (IOException ignored)
+			{
+			}
+			synchronized (threads)
+			{
+				threads.remove(Thread.currentThread());
+			}
+		}
+	}
+}
@@ -11,6 +11,7 @@ import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
 import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
 import abalone.ai.SimpleAI;
 import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.machinelearning.Adjudicator;
 import abalone.gamelogic.GameLogic;
 import abalone.gamelogic.StandardAbaloneLogic;
 import abalone.gamestate.GameState;
@@ -18,6 +19,12 @@ import abalone.model.Board;
 import abalone.model.Move;
 import abalone.model.Player;
 
+/**
+ * Knock-out tournaments: the individuals are paired at random, and the
+ * winners of a round play the next round. The matches always start from the
+ * initial position (they do not take an OpeningSuite), since a knock-out
+ * match is a single game.
+ */
 public class KOTournament implements FitnessEvaluator
 {
 	private GameLogic logic;
@@ -25,6 +32,7 @@ public class KOTournament implements FitnessEvaluator
 	private GeneticPopulation pop;
 	private Random random;
 	private int numberOfTournaments;
+	private Adjudicator adjudicator = Adjudicator.none();
 	int currentRound;
 
 	public KOTournament(int numberOfTournaments)
@@ -35,6 +43,17 @@ public class KOTournament implements FitnessEvaluator
 		random = new Random();
 	}
 
+	/**
+	 * The adjudicator that may end a match before the ply limit; by default
+	 * none. A match adjudicated as a draw is decided by the pushed marbles as
+	 * at the ply limit; if they are even, it is played on as without an
+	 * adjudicator.
+	 */
+	public void setAdjudicator(Adjudicator adjudicator)
+	{
+		this.adjudicator = adjudicator;
+	}
+
 	@Override
 	public GeneticPopulation eval(GeneticPopulation pop) throws InterruptedException
 	{
@@ -83,6 +102,7 @@ public class KOTournament implements FitnessEvaluator
 		int numberOfPlies = 0;
 		GeneticIndividual winner = null;
 		int overTimeCounter = 0;
+		Adjudicator.Game adjudication = adjudicator.start(state);
 
 		while(!finished)
 		{
@@ -101,7 +121,16 @@ public class KOTournament implements FitnessEvaluator
 				double wFit = winner.getFitness() + currentRound;
 				winner.setFitness(wFit);
 			}
-			else if (numberOfPlies == 100)
+			else if (adjudication.check(state, (LinearEvaluator) opponent.getEvaluator())
+					&& adjudication.getWinner() != null)
+			{
+				finished = true;
+
+				winner = (LinearEvaluator)((SimpleAI) adjudication.getWinner()).getEvaluator();
+				double fitness = winner.getFitness() + currentRound;
+				winner.setFitness(fitness);
+			}
+			else if (numberOfPlies == 100 || (adjudication.isAdjudicated() && !isEven(state)))
 			{
 				finished = true;
 
@@ -148,4 +177,13 @@ public class KOTournament implements FitnessEvaluator
 
 		return winner;
 	}
+
+	/**
+	 * @return whether both players have lost the same number of marbles
+	 */
+	private static boolean isEven(GameState state)
+	{
+		Map<Player, Integer> lostMarbles = state.getMarblesRemoved();
+		return lostMarbles.get(state.getCurrentPlayer()).equals(lostMarbles.get(state.getOpponentPlayer()));
+	}
 }
@@ -0,0 +1,118 @@
+package abalone.ai.machinelearning.TournamentModes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.FitnessEvaluator;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+import abalone.ai.machinelearning.Adjudicator;
+import abalone.ai.machinelearning.FitnessCollector;
+import abalone.ai.machinelearning.LockstepSimulator;
+import abalone.ai.machinelearning.OpeningSuite;
+import abalone.ai.machinelearning.Position;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+/**
+ * A round robin like the CrossTournamentMultiThreaded whose matches are
+ * played by LockstepSimulators: the matches are divided over one simulator
+ * per core, and every simulator plays its matches in lockstep.
+ */
+public class LockstepTournament implements FitnessEvaluator
+{
+	private int plyLvl;
+	private Adjudicator adjudicator = Adjudicator.none();
+	private OpeningSuite openings;
+
+	public LockstepTournament(int plyLvl)
+	{
+		this.plyLvl = plyLvl;
+	}
+
+	/**
+	 * The adjudicator that may end a match before the ply limit; by default
+	 * none, so every match is played to the end
+	 */
+	public void setAdjudicator(Adjudicator adjudicator)
+	{
+		this.adjudicator = adjudicator;
+	}
+
+	/**
+	 * The openings the matches start from; every pair of individuals plays
+	 * the next opening of the suite twice, once with either individual first.
+	 * Without a suite (the default) a pair plays once from the starting
+	 * position.
+	 */
+	public void setOpenings(OpeningSuite openings)
+	{
+		this.openings = openings;
+	}
+
+	@Override
+	public GeneticPopulation eval(GeneticPopulation pop) throws InterruptedException
+	{
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<LockstepSimulator> simulators = new ArrayList<LockstepSimulator>();
+		for (int t = 0; t < threads; t++)
+		{
+			LockstepSimulator simulator = new LockstepSimulator(new StandardAbaloneLogic(), plyLvl);
+			simulator.setAdjudicator(adjudicator);
+			simulators.add(simulator);
+		}
+		int match = 0;
+		for (int i = 0; i < pop.size(); i++)
+		{
+			for (int j = i + 1; j < pop.size(); j++)
+			{
+				if (openings == null)
+				{
+					simulators.get(match++ % threads).addMatch(pop.get(i), pop.get(j));
+				}
+				else
+				{
+					Position opening = openings.next();
+					simulators.get(match++ % threads).addMatch(pop.get(i), pop.get(j), opening);
+					simulators.get(match++ % threads).addMatch(pop.get(j), pop.get(i), opening);
+				}
+			}
+		}
+
+		final FitnessCollector fitness = new FitnessCollector();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (final LockstepSimulator simulator : simulators)
+		{
+			tasks.add(new Callable<Object>()
+			{
+				@Override
+				public Object call()
+				{
+					simulator.run(fitness);
+					return null;
+				}
+			});
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try
+		{
+			for (Future<Object> result : pool.invokeAll(tasks))
+			{
+				result.get();
+			}
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		fitness.apply();
+		return pop;
+	}
+}
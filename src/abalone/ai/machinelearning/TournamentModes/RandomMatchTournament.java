@@ -10,7 +10,9 @@ import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
 import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
 import abalone.ai.SimpleAI;
 import abalone.ai.evaluation.LinearEvaluator;
-import abalone.ai.machinelearning.MultiThreadedPlay;
+import abalone.ai.machinelearning.FitnessCollector;
+import abalone.ai.machinelearning.OpeningSuite;
+import abalone.ai.machinelearning.VirtualThreadPlay;
 import abalone.gamelogic.GameLogic;
 import abalone.gamelogic.StandardAbaloneLogic;
 import abalone.gamestate.GameState;
@@ -18,6 +20,11 @@ import abalone.model.Board;
 import abalone.model.Move;
 import abalone.model.Player;
 
+/**
+ * Every individual plays a number of matches against randomly drawn
+ * individuals. With an OpeningSuite every match is played from an opening
+ * with both colours.
+ */
 public class RandomMatchTournament implements FitnessEvaluator
 {
 	private GameLogic logic;
@@ -25,14 +32,23 @@ public class RandomMatchTournament implements FitnessEvaluator
 	private GeneticPopulation pop;
 	private int matches;
 	private Random rand = new Random();
-	private MultiThreadedPlay play;
+	private FitnessCollector fitness = new FitnessCollector();
+	private VirtualThreadPlay play;
 
 	public RandomMatchTournament(int matches)
 	{
 		this.logic = new StandardAbaloneLogic();
 		this.board = logic.initBoard();
 		this.matches = matches;
-		play = new MultiThreadedPlay(200);
+		play = new VirtualThreadPlay(200, fitness);
+	}
+
+	/**
+	 * The openings the matches start from, see VirtualThreadPlay.setOpenings()
+	 */
+	public void setOpenings(OpeningSuite openings)
+	{
+		play.setOpenings(openings);
 	}
 
 	@Override
@@ -54,7 +70,8 @@ public class RandomMatchTournament implements FitnessEvaluator
 				play.addMatch(pop.get(i), pop.get(randomNr));
 			}
 		}
-		play.runMatches();
+		play.awaitMatches();
+		fitness.apply();
 		
 		return pop;
 	}
@@ -0,0 +1,89 @@
+package abalone.ai.machinelearning.TournamentModes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.FitnessEvaluator;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+import abalone.ai.machinelearning.SurrogateFitness;
+
+/**
+ * Scores all individuals with a SurrogateFitness first and only lets the best
+ * part of them play the (expensive) games of another FitnessEvaluator. The
+ * individuals that were filtered out get a fitness below all individuals
+ * that played, ordered by their surrogate score.
+ */
+public class SurrogateFitnessEvaluator implements FitnessEvaluator
+{
+	private final SurrogateFitness surrogate;
+	private final FitnessEvaluator games;
+	private double keep = 0.5;
+
+	/**
+	 * @param games
+	 *            the evaluator for the individuals that pass the filter, e.g.
+	 *            a CrossTournamentMultiThreaded
+	 */
+	public SurrogateFitnessEvaluator(SurrogateFitness surrogate, FitnessEvaluator games)
+	{
+		this.surrogate = surrogate;
+		this.games = games;
+	}
+
+	/**
+	 * @param keep
+	 *            the fraction of the population that plays games
+	 */
+	public void setKeep(double keep)
+	{
+		this.keep = keep;
+	}
+
+	@Override
+	public GeneticPopulation eval(GeneticPopulation pop) throws InterruptedException
+	{
+		final Map<GeneticIndividual, Double> scores = new HashMap<GeneticIndividual, Double>();
+		for (GeneticIndividual individual : pop)
+		{
+			scores.put(individual, surrogate.score(individual.getPhenotype()));
+		}
+		List<GeneticIndividual> ranked = new ArrayList<GeneticIndividual>(pop);
+		Collections.sort(ranked, new Comparator<GeneticIndividual>()
+		{
+			@Override
+			public int compare(GeneticIndividual a, GeneticIndividual b)
+			{
+				return Double.compare(scores.get(b), scores.get(a));
+			}
+		});
+
+		// a tournament needs at least two players
+		int played = Math.max(2, (int) Math.ceil(keep * pop.size()));
+		if (played >= pop.size())
+		{
+			return games.eval(pop);
+		}
+		GeneticPopulation best = new GeneticPopulation();
+		best.addAll(ranked.subList(0, played));
+		games.eval(best);
+
+		double lowest = Double.POSITIVE_INFINITY;
+		for (GeneticIndividual individual : best)
+		{
+			lowest = Math.min(lowest, individual.getFitness());
+		}
+		// the surrogate scores are between 0 and 1
+		for (GeneticIndividual individual : ranked.subList(played, ranked.size()))
+		{
+			individual.setFitness(lowest - 1 + scores.get(individual));
+		}
+		System.out.println("surrogate scores from " + scores.get(ranked.get(ranked.size() - 1)) + " to "
+				+ scores.get(ranked.get(0)) + ", " + played + " of " + pop.size() + " individuals played");
+		return pop;
+	}
+}
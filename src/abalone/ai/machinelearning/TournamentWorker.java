@@ -0,0 +1,93 @@
+package abalone.ai.machinelearning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.gamelogic.GameLogic;
+
+/**
+ * Plays the matches a DistributedTournament sends over one connection, one
+ * match at a time (see MatchProtocol). A machine runs one worker per core.
+ */
+public class TournamentWorker
+{
+	private final String host;
+	private final int port;
+	private final Map<String, GameLogic> logics = new HashMap<String, GameLogic>();
+
+	public TournamentWorker(String host, int port)
+	{
+		this.host = host;
+		this.port = port;
+	}
+
+	/**
+	 * Connects to the coordinator and plays matches until the coordinator
+	 * shuts the worker down or closes the connection.
+	 */
+	public void work() throws IOException, InterruptedException
+	{
+		Socket socket = new Socket(host, port);
+		try
+		{
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			MatchProtocol.writeHello(out);
+			while (true)
+			{
+				byte type = in.readByte();
+				if (type == MatchProtocol.SHUTDOWN)
+				{
+					return;
+				}
+				if (type != MatchProtocol.MATCH)
+				{
+					throw new IOException("unexpected message " + type);
+				}
+				MatchProtocol.MatchSpec spec = MatchProtocol.readMatch(in);
+				MatchStats[] stats;
+				try
+				{
+					Match match = new Match(getLogic(spec.getLogicClass()), spec.getPlyLvl());
+					stats = match.play(new LinearEvaluator(spec.getFirst()), new LinearEvaluator(spec.getSecond()));
+				}
+				catch (RuntimeException e)
+				{
+					MatchProtocol.writeError(out, spec.getId(), e.toString());
+					continue;
+				}
+				MatchProtocol.writeResult(out, spec.getId(), stats);
+			}
+		}
+		finally
+		{
+			socket.close();
+		}
+	}
+
+	private GameLogic getLogic(String className)
+	{
+		GameLogic logic = logics.get(className);
+		if (logic == null)
+		{
+			try
+			{
+				logic = Class.forName(className).asSubclass(GameLogic.class).getDeclaredConstructor().newInstance();
+			}
+			catch (Exception e)
+			{
+				throw new IllegalArgumentException("cannot create game logic " + className, e);
+			}
+			logics.put(className, logic);
+		}
+		return logic;
+	}
+}
@@ -0,0 +1,153 @@
+package abalone.ai.machinelearning;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file of training positions from self-play, memory mapped for reading.
+ * The positions are records of a fixed width after a header, so record i can
+ * be read without reading the records before it (big endian):
+ * <pre>
+ * header: int magic "ABTS", int version, int record size (32), int 0
+ * record: long first, long second, byte to move, byte lost first,
+ *         byte lost second, byte result, float score, int ply, int game
+ * </pre>
+ * The first fields are those of a Position. The result is the number of half
+ * points of the first player: 2 for a win, 1 if the game ended undecided, 0
+ * for a loss. The score is the value of the search of the player to move, NaN
+ * if the move was random (see SelfPlay). Shards are written by a ShardWriter.
+ */
+public class TrainingShard
+{
+	static final int FILE_MAGIC = 0x41425453; // "ABTS"
+	static final int FILE_VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int RECORD_SIZE = 32;
+
+	private final MappedByteBuffer buffer;
+	private final int size;
+
+	private TrainingShard(MappedByteBuffer buffer, int size)
+	{
+		this.buffer = buffer;
+		this.size = size;
+	}
+
+	public static TrainingShard open(File file) throws IOException
+	{
+		FileInputStream in = new FileInputStream(file);
+		try
+		{
+			FileChannel channel = in.getChannel();
+			long length = channel.size();
+			if (length < HEADER_SIZE || length > Integer.MAX_VALUE)
+			{
+				throw new IOException(file + " is not a training shard");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			if (buffer.getInt(0) != FILE_MAGIC || buffer.getInt(4) != FILE_VERSION || buffer.getInt(8) != RECORD_SIZE)
+			{
+				throw new IOException(file + " is not a training shard of version " + FILE_VERSION);
+			}
+			// a shard of a writer that did not finish ends with a partial record
+			return new TrainingShard(buffer, (int) ((length - HEADER_SIZE) / RECORD_SIZE));
+		}
+		finally
+		{
+			// the mapping stays valid
+			in.close();
+		}
+	}
+
+	/**
+	 * @return the number of records
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	private int offset(int i)
+	{
+		if (i < 0 || i >= size)
+		{
+			throw new IndexOutOfBoundsException("record " + i + " of " + size);
+		}
+		return HEADER_SIZE + i * RECORD_SIZE;
+	}
+
+	public long getFirst(int i)
+	{
+		return buffer.getLong(offset(i));
+	}
+
+	public long getSecond(int i)
+	{
+		return buffer.getLong(offset(i) + 8);
+	}
+
+	public int getToMove(int i)
+	{
+		return buffer.get(offset(i) + 16);
+	}
+
+	public int getLostFirst(int i)
+	{
+		return buffer.get(offset(i) + 17);
+	}
+
+	public int getLostSecond(int i)
+	{
+		return buffer.get(offset(i) + 18);
+	}
+
+	/**
+	 * @return the result of the game for the first player: 1 for a win, 0 for
+	 *         a loss, 0.5 if the game ended undecided
+	 */
+	public double getResult(int i)
+	{
+		return buffer.get(offset(i) + 19) / 2.0;
+	}
+
+	public float getScore(int i)
+	{
+		return buffer.getFloat(offset(i) + 20);
+	}
+
+	/**
+	 * @return the number of plies played before the position
+	 */
+	public int getPly(int i)
+	{
+		return buffer.getInt(offset(i) + 24);
+	}
+
+	/**
+	 * @return the number of the game of the position
+	 */
+	public int getGame(int i)
+	{
+		return buffer.getInt(offset(i) + 28);
+	}
+
+	public Position getPosition(int i)
+	{
+		return new Position(getFirst(i), getSecond(i), getToMove(i), getLostFirst(i), getLostSecond(i), getResult(i));
+	}
+
+	/**
+	 * Writes the header of a shard into a buffer.
+	 */
+	static void putHeader(ByteBuffer buffer)
+	{
+		buffer.putInt(FILE_MAGIC);
+		buffer.putInt(FILE_VERSION);
+		buffer.putInt(RECORD_SIZE);
+		buffer.putInt(0);
+	}
+}
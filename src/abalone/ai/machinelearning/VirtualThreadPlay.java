@@ -0,0 +1,148 @@
+package abalone.ai.machinelearning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+/**
+ * Plays matches between individuals with a thread per match, for tournaments
+ * with thousands of matches. On a JVM with virtual threads every match gets
+ * a virtual thread, so the whole schedule can be added at once; a semaphore
+ * lets only one match per core search at the same time. Without virtual
+ * threads the matches are queued on a pool with one thread per core.
+ *
+ * A match only creates its players after it got a permit, so a waiting match
+ * costs little more than its thread. The results go to a
+ * MatchResultCollector as soon as a match is finished.
+ */
+public class VirtualThreadPlay
+{
+	private final Match match;
+	private final MatchResultCollector collector;
+	private final Semaphore cores = new Semaphore(Runtime.getRuntime().availableProcessors());
+	private ExecutorService executor;
+	private List<Future<Object>> running = new ArrayList<Future<Object>>();
+	private OpeningSuite openings;
+
+	public VirtualThreadPlay(int plyLvl, MatchResultCollector collector)
+	{
+		this.match = new Match(new StandardAbaloneLogic(), plyLvl);
+		this.collector = collector;
+	}
+
+	/**
+	 * The adjudicator that may end a match before the ply limit; by default
+	 * none, so every match is played to the end
+	 */
+	public void setAdjudicator(Adjudicator adjudicator)
+	{
+		match.setAdjudicator(adjudicator);
+	}
+
+	/**
+	 * The openings the matches start from; every added match is played twice
+	 * from the next opening of the suite, once with either individual first.
+	 * Without a suite (the default) a match is played once from the starting
+	 * position.
+	 */
+	public void setOpenings(OpeningSuite openings)
+	{
+		this.openings = openings;
+	}
+
+	/**
+	 * Starts a match; it is played as soon as a core is free.
+	 */
+	public synchronized void addMatch(GeneticIndividual p1, GeneticIndividual p2)
+	{
+		if (openings == null)
+		{
+			addMatch(p1, p2, null);
+		}
+		else
+		{
+			Position opening = openings.next();
+			addMatch(p1, p2, opening);
+			addMatch(p2, p1, opening);
+		}
+	}
+
+	private void addMatch(final GeneticIndividual p1, final GeneticIndividual p2, final Position opening)
+	{
+		if (executor == null)
+		{
+			executor = createExecutor();
+		}
+		running.add(executor.submit(new Callable<Object>()
+		{
+			@Override
+			public Object call() throws InterruptedException
+			{
+				MatchStats[] stats;
+				cores.acquire();
+				try
+				{
+					stats = match.play(p1, p2, opening);
+				}
+				finally
+				{
+					cores.release();
+				}
+				collector.add(p1, stats[0]);
+				collector.add(p2, stats[1]);
+				return null;
+			}
+		}));
+	}
+
+	/**
+	 * Blocks until all added matches are finished.
+	 */
+	public synchronized void awaitMatches() throws InterruptedException
+	{
+		try
+		{
+			for (Future<Object> result : running)
+			{
+				result.get();
+			}
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			running.clear();
+			if (executor != null)
+			{
+				executor.shutdownNow();
+				executor = null;
+			}
+		}
+	}
+
+	/**
+	 * @return an executor with a virtual thread per task if the JVM has them
+	 *         (Java 21), otherwise a pool with a thread per core
+	 */
+	private static ExecutorService createExecutor()
+	{
+		try
+		{
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (Exception e)
+		{
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		}
+	}
+}
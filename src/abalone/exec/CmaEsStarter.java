@@ -0,0 +1,52 @@
+package abalone.exec;
+
+import java.io.File;
+import java.io.IOException;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.machinelearning.CmaEs;
+import abalone.ai.machinelearning.OpeningSuite;
+import abalone.ai.machinelearning.TournamentModes.CachedCrossTournament;
+
+/**
+ * Optimizes the weights of the LinearEvaluator with CMA-ES instead of the
+ * GeneticSearch of GeneticAlStarter. The samples of a generation play a
+ * round robin, from the openings of openings.bin if it exists (see
+ * GenerateOpenings). The result is printed as a weights line for an AI
+ * configuration (see SearchConfig.load()).
+ *
+ * Arguments: [maximum number of samples]
+ */
+public class CmaEsStarter
+{
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		int maxEvaluations = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+
+		CachedCrossTournament tournament = new CachedCrossTournament(20);
+		File openings = new File("openings.bin");
+		if (openings.exists())
+		{
+			tournament.setOpenings(OpeningSuite.load(openings));
+		}
+		CmaEs cmaEs = new CmaEs(tournament, LinearEvaluator.NUMBER_OF_FUNCTIONS);
+		cmaEs.setMaxEvaluations(maxEvaluations);
+		cmaEs.setVerbose(true);
+
+		long start = System.currentTimeMillis();
+		LinearEvaluator best = cmaEs.run();
+		StringBuilder weights = new StringBuilder();
+		for (Gene<?> gene : best.getPhenotype())
+		{
+			if (weights.length() > 0)
+			{
+				weights.append(',');
+			}
+			weights.append(gene.getValue());
+		}
+		System.out.println(cmaEs.getEvaluations() + " samples in " + (System.currentTimeMillis() - start) / 1000
+				+ " s, tournament matches played: " + tournament.getPlayed());
+		System.out.println("weights=" + weights);
+	}
+}
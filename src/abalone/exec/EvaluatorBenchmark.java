@@ -0,0 +1,131 @@
+package abalone.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import abalone.ai.AbaloneSearchProblem;
+import abalone.ai.evaluation.AbaloneEvaluator;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.evaluation.NTupleEvaluator;
+import abalone.ai.evaluation.NeuralEvaluator;
+import abalone.ai.machinelearning.Weight;
+import abalone.gamelogic.GameLogic;
+import abalone.gamelogic.StandardAbaloneLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Board;
+import abalone.model.Move;
+import abalone.model.Player;
+import abalone.model.HumanPlayer;
+
+/**
+ * Measures the throughput of the evaluators in evaluations per second, on
+ * positions from random games. Two numbers are given per evaluator: plain
+ * evaluations of finished positions, and applying a move to a copy of a
+ * position followed by an evaluation, as a search does. The second includes
+ * the incremental updates of the accumulators.
+ *
+ * Arguments: [network file]; without a file a random network is used.
+ */
+public class EvaluatorBenchmark
+{
+	private static final int POSITIONS = 2000;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException
+	{
+		GameLogic logic = new StandardAbaloneLogic();
+		List<Player> players = new ArrayList<Player>();
+		players.add(new HumanPlayer("white"));
+		players.add(new HumanPlayer("black"));
+		Board board = logic.initBoard();
+
+		Genotype weights = new Genotype();
+		double[] w = { 0.05, 0.05, 0.025, 0.025, 0.2, -0.2 };
+		for (double d : w)
+		{
+			weights.add(new Weight(d));
+		}
+		List<AbaloneEvaluator> evaluators = new ArrayList<AbaloneEvaluator>();
+		evaluators.add(new LinearEvaluator(weights));
+		evaluators.add(new NTupleEvaluator(board));
+		if (args.length > 0)
+		{
+			evaluators.add(NeuralEvaluator.load(new File(args[0])));
+		}
+		else
+		{
+			evaluators.add(NeuralEvaluator.random(board.getNodes().size(), 64, 16, 1));
+		}
+
+		for (AbaloneEvaluator evaluator : evaluators)
+		{
+			// Every evaluator gets its own positions, which only carry its own
+			// accumulators. The random games are the same for all of them.
+			GameState start = logic.initState(board, players);
+			evaluator.setInitialState(start);
+			List<GameState> positions = new ArrayList<GameState>(POSITIONS);
+			List<Move> moves = new ArrayList<Move>(POSITIONS);
+			playRandomGames(logic, start, positions, moves);
+
+			String name = evaluator.getClass().getSimpleName();
+			double sum = 0;
+			long evals = 0;
+			long time = 0;
+			for (int round = 0; round < ROUNDS; round++)
+			{
+				long t = System.nanoTime();
+				for (GameState p : positions)
+				{
+					sum += evaluator.eval(p);
+				}
+				time += System.nanoTime() - t;
+				evals += positions.size();
+			}
+			System.out.println(name + " eval: " + (long) (evals / (time / 1e9)) + " evals/sec");
+
+			GameState copy = start.clone();
+			evals = 0;
+			time = 0;
+			for (int round = 0; round < ROUNDS; round++)
+			{
+				long t = System.nanoTime();
+				for (int i = 0; i < positions.size(); i++)
+				{
+					positions.get(i).copyInto(copy);
+					logic.applyMove(copy, moves.get(i));
+					sum += evaluator.eval(copy);
+				}
+				time += System.nanoTime() - t;
+				evals += positions.size();
+			}
+			System.out.println(name + " move + eval: " + (long) (evals / (time / 1e9)) + " evals/sec (checksum " + sum + ")");
+		}
+	}
+
+	/**
+	 * Plays random games from the start until there are POSITIONS positions,
+	 * and stores every position with the move played in it.
+	 */
+	private static void playRandomGames(GameLogic logic, GameState start, List<GameState> positions, List<Move> moves)
+	{
+		Random random = new Random(42);
+		GameState s = start.clone();
+		while (positions.size() < POSITIONS)
+		{
+			List<Action> actions = new AbaloneSearchProblem(s, logic).generateActions(s);
+			Move m = (Move) actions.get(random.nextInt(actions.size()));
+			positions.add(s.clone());
+			moves.add(m);
+			logic.applyMove(s, m);
+			if (logic.getWinner(s) != null || positions.size() % 100 == 0)
+			{
+				s = start.clone();
+			}
+		}
+	}
+}
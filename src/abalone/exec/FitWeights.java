@@ -0,0 +1,44 @@
+package abalone.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import abalone.ai.machinelearning.GenotypeIO;
+import abalone.ai.machinelearning.LogisticWeightFitter;
+import abalone.ai.machinelearning.Position;
+import abalone.ai.machinelearning.PositionCorpus;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+/**
+ * Fits the weights of the LinearEvaluator to a corpus of recorded positions
+ * (see RecordGames) and writes them in the format of GenotypeIO, which can be
+ * given to the TrainedAI.
+ *
+ * Arguments: [corpus file] [weight file] [iterations]
+ */
+public class FitWeights
+{
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		File corpus = new File((args.length > 0) ? args[0] : "positions.txt");
+		File output = new File((args.length > 1) ? args[1] : "weights.txt");
+
+		long start = System.currentTimeMillis();
+		List<Position> positions = PositionCorpus.load(corpus);
+		System.out.println(positions.size() + " positions loaded");
+
+		LogisticWeightFitter fitter = new LogisticWeightFitter();
+		if (args.length > 2)
+		{
+			fitter.setIterations(Integer.parseInt(args[2]));
+		}
+		fitter.setVerbose(true);
+		Genotype weights = fitter.fit(positions, new StandardAbaloneLogic());
+		GenotypeIO.save(weights, output);
+
+		System.out.println("weights " + weights + " written to " + output + " in "
+				+ (System.currentTimeMillis() - start) + " ms");
+	}
+}
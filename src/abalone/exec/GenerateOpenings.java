@@ -0,0 +1,37 @@
+package abalone.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import abalone.ai.TrainedAI;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.machinelearning.OpeningSuite;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+/**
+ * Generates an opening suite for the tournaments (see OpeningSuite). The
+ * balance of the openings is judged with the trained weights; the same seed
+ * gives the same suite. Prints the time the generation takes.
+ *
+ * Arguments: [output file] [number of openings] [random plies] [balance]
+ * [seed]
+ */
+public class GenerateOpenings
+{
+	public static void main(String[] args) throws IOException
+	{
+		File output = new File((args.length > 0) ? args[0] : "openings.bin");
+		int size = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+		int plies = (args.length > 2) ? Integer.parseInt(args[2]) : 6;
+		double balance = (args.length > 3) ? Double.parseDouble(args[3]) : 0.05;
+		long seed = (args.length > 4) ? Long.parseLong(args[4]) : 0;
+
+		long start = System.currentTimeMillis();
+		OpeningSuite suite = OpeningSuite.generate(new StandardAbaloneLogic(), new LinearEvaluator(
+				TrainedAI.getDefaultWeights()), size, plies, balance, new Random(seed));
+		suite.save(output);
+		System.out.println(suite.size() + " openings written to " + output + " in "
+				+ (System.currentTimeMillis() - start) + " ms");
+	}
+}
@@ -0,0 +1,80 @@
+package abalone.exec;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Gene;
+import abalone.ai.TrainedAI;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.machinelearning.SelfPlayPipeline;
+import abalone.ai.machinelearning.TrainingShard;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+/**
+ * Plays self-play games and writes their positions into training shards (see
+ * SelfPlayPipeline), then reads the shards back and prints how many positions
+ * they hold. Without a configuration both players search with the trained
+ * weights.
+ *
+ * Arguments: [output directory] [number of games] [ai.properties]
+ */
+public class GenerateTrainingData
+{
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		File directory = new File((args.length > 0) ? args[0] : "shards");
+		int games = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+		Properties ai = (args.length > 2) ? load(args[2]) : trainedWeights();
+
+		SelfPlayPipeline pipeline = new SelfPlayPipeline(new StandardAbaloneLogic(), ai, directory);
+		pipeline.setGames(games);
+		pipeline.run();
+
+		long positions = 0;
+		File[] shards = directory.listFiles();
+		for (File shard : (shards == null) ? new File[0] : shards)
+		{
+			if (shard.getName().endsWith(".bin"))
+			{
+				positions += TrainingShard.open(shard).size();
+			}
+		}
+		System.out.println(positions + " positions in " + directory);
+	}
+
+	private static Properties trainedWeights()
+	{
+		StringBuilder weights = new StringBuilder();
+		for (Gene<?> gene : TrainedAI.getDefaultWeights())
+		{
+			if (weights.length() > 0)
+			{
+				weights.append(',');
+			}
+			weights.append(gene.getValue());
+		}
+		Properties properties = new Properties();
+		properties.setProperty("name", "Self-play");
+		properties.setProperty("evaluator", LinearEvaluator.class.getName());
+		properties.setProperty("weights", weights.toString());
+		return properties;
+	}
+
+	private static Properties load(String file) throws IOException
+	{
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(file);
+		try
+		{
+			properties.load(in);
+		}
+		finally
+		{
+			in.close();
+		}
+		return properties;
+	}
+}
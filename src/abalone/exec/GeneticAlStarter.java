@@ -2,52 +2,123 @@ package abalone.exec;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.Random;
 
+import nl.maastrichtuniversity.dke.libreason.genetics.FitnessEvaluator;
 import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
 import nl.maastrichtuniversity.dke.libreason.genetics.GeneticSearch;
 import nl.maastrichtuniversity.dke.libreason.genetics.reproduction.KeepBestPairwiseReproduction;
 import nl.maastrichtuniversity.dke.libreason.genetics.selection.ElitistSelection;
 import abalone.ai.evaluation.LinearEvaluator;
-import abalone.ai.machinelearning.TournamentModes.CrossTournament;
+import abalone.ai.machinelearning.OpeningSuite;
+import abalone.ai.machinelearning.PopulationCheckpoint;
+import abalone.ai.machinelearning.SurrogateFitness;
+import abalone.ai.machinelearning.TournamentModes.CachedCrossTournament;
+import abalone.ai.machinelearning.TournamentModes.DistributedTournament;
 import abalone.ai.machinelearning.TournamentModes.KOTournament;
 import abalone.ai.machinelearning.TournamentModes.RandomMatchTournament;
+import abalone.ai.machinelearning.TournamentModes.SurrogateFitnessEvaluator;
+import abalone.gamelogic.StandardAbaloneLogic;
 
+/**
+ * Runs the genetic search of LinearEvaluator weights and writes a checkpoint
+ * after every generation (see PopulationCheckpoint), from which a new start
+ * continues. The individuals play a cached round robin on this machine, or,
+ * with a port, a DistributedTournament whose matches are played by the
+ * TournamentWorkers that connect to the port (see TournamentWorkerStarter).
+ *
+ * Arguments: [port]
+ */
 public class GeneticAlStarter
 {
-	public static void main(String[] args)
+	public static void main(String[] args) throws IOException
 	{
-		GeneticPopulation pop = null;
-		File file = new File("population.ser");
-		if(file.exists())
+		PopulationCheckpoint checkpoint = null;
+		File checkpointFile = new File("population.bin");
+		if (checkpointFile.exists())
 		{
-			pop = loadPop();
+			checkpoint = PopulationCheckpoint.load(checkpointFile);
+		}
+		// The weights of new individuals, mutation and crossover are drawn
+		// from this generator, which is reseeded after every generation, so
+		// a run continued from a checkpoint draws the same numbers as the run
+		// that wrote it. The selection of the genetic search and the matches
+		// are not covered.
+		Random random = new Random((checkpoint != null) ? checkpoint.getSeed() : System.nanoTime());
+		LinearEvaluator.setRandom(random);
+		if (checkpoint == null && new File("population.ser").exists())
+		{
+			// a population of an older run
+			checkpoint = new PopulationCheckpoint(0, 0, loadPop());
+		}
+		else if (checkpoint == null)
+		{
+			checkpoint = new PopulationCheckpoint(0, 0, generatePop(20));
+		}
+		GeneticPopulation pop = checkpoint.getPopulation();
+		int firstGeneration = checkpoint.getGeneration();
+
+		FitnessEvaluator fitness;
+		DistributedTournament distributed = null;
+		if (args.length > 0)
+		{
+			distributed = new DistributedTournament(Integer.parseInt(args[0]), new StandardAbaloneLogic(), 20);
+			fitness = distributed;
 		}
 		else
 		{
-			pop = generatePop(20);
+			// the matches of the survivors against each other are not played
+			// again
+			CachedCrossTournament tournament = new CachedCrossTournament(20);
+			// with an opening suite (see GenerateOpenings) every match is a
+			// pair of games from one of its openings
+			File openings = new File("openings.bin");
+			if (openings.exists())
+			{
+				tournament.setOpenings(OpeningSuite.load(openings));
+			}
+			fitness = tournament;
 		}
-		GeneticSearch search = new GeneticSearch(pop, new ElitistSelection(), new KeepBestPairwiseReproduction(4, 2), new CrossTournament());
+		// with recorded reference searches (see RecordReferenceSet) only the
+		// most promising half of the population plays games
+		File reference = new File("reference.bin");
+		if (reference.exists())
+		{
+			fitness = new SurrogateFitnessEvaluator(SurrogateFitness.load(reference), fitness);
+		}
+		GeneticSearch search = new GeneticSearch(pop, new ElitistSelection(), new KeepBestPairwiseReproduction(4, 2), fitness);
 		search.setSelectionSize(5);
 
 		int numberOfGenerations = 100;
+		File history = new File("output.txt");
 
 		try
 		{
-		while(search.getGeneration() < numberOfGenerations)
-		{
-			savePop(search.getPopulation());
+			while(firstGeneration + search.getGeneration() < numberOfGenerations)
+			{
+				search.spawnGeneration();
 
-			search.spawnGeneration();
-		}
+				long seed = random.nextLong();
+				random.setSeed(seed);
+				checkpoint = new PopulationCheckpoint(firstGeneration + search.getGeneration(), seed,
+						search.getPopulation());
+				checkpoint.save(checkpointFile);
+				checkpoint.appendHistory(history);
+			}
 		}
 		catch (InterruptedException e)
 		{
 			throw new RuntimeException("Unexpected Interrupt");
 		}
+		finally
+		{
+			if (distributed != null)
+			{
+				distributed.close();
+			}
+		}
 	}
 
 	private static GeneticPopulation generatePop(int popSize)
@@ -62,24 +133,6 @@ public class GeneticAlStarter
 		return pop;
 	}
 
-	private static void savePop(GeneticPopulation pop)
-	{
-		try
-		{
-			FileOutputStream fs = new FileOutputStream("population.ser");
-			ObjectOutputStream os = new ObjectOutputStream(fs);
-			
-			os.writeObject(pop);
-
-			os.close();
-			fs.close();
-		}
-		catch (IOException e)
-		{
-			e.printStackTrace();
-		}
-	}
-	
 	private static GeneticPopulation loadPop()
 	{
 		try
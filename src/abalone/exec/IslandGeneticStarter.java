@@ -0,0 +1,35 @@
+package abalone.exec;
+
+import java.io.File;
+import java.io.IOException;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import abalone.ai.machinelearning.GenotypeIO;
+import abalone.ai.machinelearning.IslandModel;
+
+/**
+ * Evolves the weights of the LinearEvaluator with an IslandModel and writes
+ * the weights of the best island champion (see IslandModel.getBest()) in the
+ * format of GenotypeIO.
+ *
+ * Arguments: [number of islands] [individuals per island] [generations]
+ * [weight file]
+ */
+public class IslandGeneticStarter
+{
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		int islands = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+		int islandSize = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+		int generations = (args.length > 2) ? Integer.parseInt(args[2]) : 100;
+		File output = new File((args.length > 3) ? args[3] : "weights.txt");
+
+		IslandModel model = new IslandModel(islands, islandSize);
+		model.setVerbose(true);
+		model.run(generations);
+
+		GeneticIndividual best = model.getBest();
+		GenotypeIO.save(best.getPhenotype(), output);
+		System.out.println("best " + best + " written to " + output);
+	}
+}
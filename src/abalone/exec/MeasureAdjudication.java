@@ -0,0 +1,82 @@
+package abalone.exec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.machinelearning.Adjudicator;
+import abalone.ai.machinelearning.LockstepSimulator;
+import abalone.ai.machinelearning.MatchResultCollector;
+import abalone.ai.machinelearning.MatchStats;
+import abalone.ai.machinelearning.Weight;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+/**
+ * Plays the same round robin between random weights twice on the lockstep
+ * simulator, without an adjudicator and with the settings of new
+ * Adjudicator(), and prints the average number of plies per match and the
+ * time of both runs. The weights are drawn from the given seed, so the
+ * matches are the same in both runs and in every run of the program.
+ *
+ * Arguments: [number of individuals] [ply limit] [seed]
+ */
+public class MeasureAdjudication
+{
+	public static void main(String[] args)
+	{
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+		int plies = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : 1;
+
+		Random random = new Random(seed);
+		List<LinearEvaluator> population = new ArrayList<LinearEvaluator>();
+		for (int i = 0; i < size; i++)
+		{
+			Genotype weights = new Genotype();
+			for (int w = 0; w < LinearEvaluator.NUMBER_OF_FUNCTIONS; w++)
+			{
+				weights.add(new Weight(2 * random.nextDouble() - 1));
+			}
+			population.add(new LinearEvaluator(weights));
+		}
+
+		measure("without adjudication", population, plies, Adjudicator.none());
+		measure("with adjudication   ", population, plies, new Adjudicator());
+	}
+
+	private static void measure(String name, List<LinearEvaluator> population, int plies, Adjudicator adjudicator)
+	{
+		LockstepSimulator simulator = new LockstepSimulator(new StandardAbaloneLogic(), plies);
+		simulator.setAdjudicator(adjudicator);
+		for (int i = 0; i < population.size(); i++)
+		{
+			for (int j = i + 1; j < population.size(); j++)
+			{
+				simulator.addMatch(population.get(i), population.get(j));
+			}
+		}
+		// [results, plies, decided]
+		final long[] counts = new long[3];
+		long start = System.currentTimeMillis();
+		simulator.run(new MatchResultCollector()
+		{
+			@Override
+			public void add(GeneticIndividual individual, MatchStats stats)
+			{
+				counts[0]++;
+				counts[1] += stats.getNumberOfPlies();
+				if (stats.isWinner())
+				{
+					counts[2]++;
+				}
+			}
+		});
+		long time = System.currentTimeMillis() - start;
+		// every match reports a result for both individuals
+		System.out.println(name + ": " + counts[0] / 2 + " matches, " + (double) counts[1] / counts[0]
+				+ " plies on average, " + counts[2] + " decided, " + time + " ms");
+	}
+}
@@ -0,0 +1,76 @@
+package abalone.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import abalone.ai.ConfigurableAI;
+import abalone.ai.SearchConfig;
+import abalone.ai.evaluation.NTupleEvaluator;
+import abalone.ai.machinelearning.SelfPlay;
+import abalone.gamelogic.GameLogic;
+import abalone.gamelogic.StandardAbaloneLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Player;
+
+/**
+ * Trains the weights of an NTupleEvaluator by self-play. Both players search
+ * one ply with the evaluator; a part of the moves is played at random so the
+ * games differ. After every game the evaluator learns from all its positions.
+ *
+ * Arguments: [number of games] [weight file]
+ */
+public class NTupleTrainer
+{
+	private static final int MAX_PLIES = 200;
+	private static final double EXPLORATION = 0.1;
+	private static final double LEARNING_RATE = 0.01;
+
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		int games = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		File file = new File((args.length > 1) ? args[1] : "ntuple.weights");
+
+		GameLogic logic = new StandardAbaloneLogic();
+		NTupleEvaluator evaluator = file.exists() ? NTupleEvaluator.load(file) : new NTupleEvaluator(logic.initBoard());
+
+		SearchConfig config = new SearchConfig();
+		config.setName("N-tuple self-play");
+		config.setEvaluator(evaluator);
+		config.setDepth(1);
+		config.setRandomized(true);
+
+		SelfPlay selfPlay = new SelfPlay(logic);
+		selfPlay.setMaxPlies(MAX_PLIES);
+		selfPlay.setExploration(EXPLORATION);
+
+		int[] results = new int[3];
+		for (int game = 1; game <= games; game++)
+		{
+			ConfigurableAI first = new ConfigurableAI(logic, config);
+			ConfigurableAI second = new ConfigurableAI(logic, config);
+			List<GameState> positions = new ArrayList<GameState>();
+			Player winner;
+			try
+			{
+				winner = selfPlay.play(first, second, positions);
+			}
+			finally
+			{
+				first.close();
+				second.close();
+			}
+			evaluator.learnGame(positions, winner, LEARNING_RATE);
+			results[(winner == null) ? 2 : (winner == first ? 0 : 1)]++;
+
+			if (game % 100 == 0)
+			{
+				System.out.println(game + " games, first player won " + results[0] + ", second player won " + results[1]
+						+ ", undecided " + results[2]);
+				evaluator.save(file);
+			}
+		}
+		evaluator.save(file);
+	}
+}
@@ -0,0 +1,58 @@
+package abalone.exec;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import abalone.ai.machinelearning.EngineMatch;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+/**
+ * Plays two AI configurations against each other until the SPRT of an
+ * EngineMatch is decided and prints the Elo difference of the first one.
+ *
+ * Arguments: first.properties second.properties [elo0] [elo1] [maximum number
+ * of pairs]
+ */
+public class PlayEngineMatch
+{
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if (args.length < 2)
+		{
+			System.out.println("usage: PlayEngineMatch first.properties second.properties [elo0] [elo1] [max pairs]");
+			return;
+		}
+		EngineMatch match = new EngineMatch(new StandardAbaloneLogic(), load(args[0]), load(args[1]));
+		if (args.length > 3)
+		{
+			match.setHypotheses(Double.parseDouble(args[2]), Double.parseDouble(args[3]));
+		}
+		if (args.length > 4)
+		{
+			match.setMaxPairs(Integer.parseInt(args[4]));
+		}
+		match.setVerbose(true);
+
+		long start = System.currentTimeMillis();
+		EngineMatch.Result result = match.run();
+		System.out.println(result + " after " + match.getPairs() + " pairs in "
+				+ (System.currentTimeMillis() - start) / 1000 + " s: " + match);
+	}
+
+	private static Properties load(String file) throws IOException
+	{
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(file);
+		try
+		{
+			properties.load(in);
+		}
+		finally
+		{
+			in.close();
+		}
+		return properties;
+	}
+}
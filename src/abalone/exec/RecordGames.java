@@ -0,0 +1,47 @@
+package abalone.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import abalone.ai.SimpleAI;
+import abalone.ai.TrainedAI;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.machinelearning.PositionCorpus;
+import abalone.ai.machinelearning.SelfPlay;
+import abalone.gamelogic.GameLogic;
+import abalone.gamelogic.StandardAbaloneLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Player;
+
+/**
+ * Plays games between two minimax players with the trained weights and
+ * appends their positions and results to a corpus for FitWeights. A part of
+ * the moves is played at random so the games differ.
+ *
+ * Arguments: [number of games] [corpus file]
+ */
+public class RecordGames
+{
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		int games = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+		File file = new File((args.length > 1) ? args[1] : "positions.txt");
+
+		GameLogic logic = new StandardAbaloneLogic();
+		SelfPlay selfPlay = new SelfPlay(logic);
+		selfPlay.setExploration(0.1);
+
+		for (int game = 1; game <= games; game++)
+		{
+			SimpleAI first = new SimpleAI(logic, new LinearEvaluator(TrainedAI.getDefaultWeights()));
+			SimpleAI second = new SimpleAI(logic, new LinearEvaluator(TrainedAI.getDefaultWeights()));
+			List<GameState> positions = new ArrayList<GameState>();
+			Player winner = selfPlay.play(first, second, positions);
+			PositionCorpus.append(file, positions, winner);
+			System.out.println("game " + game + ": " + positions.size() + " positions, winner "
+					+ (winner == null ? "none" : (winner == first ? "first" : "second")));
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package abalone.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import abalone.ai.ConfigurableAI;
+import abalone.ai.SearchConfig;
+import abalone.ai.SearchConfig.Hashing;
+import abalone.ai.TrainedAI;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.machinelearning.Position;
+import abalone.ai.machinelearning.PositionCorpus;
+import abalone.ai.machinelearning.SurrogateFitness;
+import abalone.gamelogic.GameLogic;
+import abalone.gamelogic.StandardAbaloneLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Board;
+import abalone.model.HumanPlayer;
+import abalone.model.Player;
+
+/**
+ * Records the reference searches of a SurrogateFitness for random positions
+ * of a corpus (see RecordGames). The teacher searches three plies deep with
+ * the trained weights.
+ *
+ * Arguments: [corpus file] [reference file] [number of positions]
+ */
+public class RecordReferenceSet
+{
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		File corpus = new File((args.length > 0) ? args[0] : "positions.txt");
+		File output = new File((args.length > 1) ? args[1] : "reference.bin");
+		int size = (args.length > 2) ? Integer.parseInt(args[2]) : 500;
+
+		long start = System.currentTimeMillis();
+		List<Position> positions = PositionCorpus.load(corpus);
+		Collections.shuffle(positions, new Random(0));
+
+		GameLogic logic = new StandardAbaloneLogic();
+		Board board = logic.initBoard();
+		List<Player> players = new ArrayList<Player>();
+		players.add(new HumanPlayer("first"));
+		players.add(new HumanPlayer("second"));
+		List<GameState> states = new ArrayList<GameState>();
+		for (Position p : positions.subList(0, Math.min(size, positions.size())))
+		{
+			// the teacher's transposition table is keyed by the hash
+			GameState state = p.toState(logic, board, players);
+			state.initHash();
+			states.add(state);
+		}
+
+		SearchConfig config = new SearchConfig();
+		config.setName("Reference teacher");
+		config.setEvaluator(new LinearEvaluator(TrainedAI.getDefaultWeights()));
+		config.setDepth(3);
+		config.setHashing(Hashing.SYMMETRIC);
+		ConfigurableAI teacher = new ConfigurableAI(logic, config);
+		SurrogateFitness reference;
+		try
+		{
+			reference = SurrogateFitness.record(states, teacher, logic);
+		}
+		finally
+		{
+			teacher.close();
+		}
+		reference.save(output);
+
+		System.out.println(reference.size() + " positions written to " + output + " in "
+				+ (System.currentTimeMillis() - start) + " ms, score of the teacher's weights "
+				+ reference.score(TrainedAI.getDefaultWeights()));
+	}
+}
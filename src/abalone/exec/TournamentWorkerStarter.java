@@ -0,0 +1,68 @@
+package abalone.exec;
+
+import java.io.IOException;
+
+import abalone.ai.machinelearning.TournamentWorker;
+
+/**
+ * Starts TournamentWorkers that play the matches of a DistributedTournament,
+ * one per core by default. A worker whose connection breaks connects again,
+ * so the workers can be started before the coordinator.
+ *
+ * Arguments: host port [number of workers]
+ */
+public class TournamentWorkerStarter
+{
+	private static final long RECONNECT_DELAY = 5000;
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		if (args.length < 2)
+		{
+			System.out.println("usage: TournamentWorkerStarter host port [number of workers]");
+			return;
+		}
+		final String host = args[0];
+		final int port = Integer.parseInt(args[1]);
+		int count = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		Thread[] workers = new Thread[count];
+		for (int i = 0; i < count; i++)
+		{
+			workers[i] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					TournamentWorker worker = new TournamentWorker(host, port);
+					try
+					{
+						while (true)
+						{
+							try
+							{
+								worker.work();
+								// shut down by the coordinator
+								return;
+							}
+							catch (IOException e)
+							{
+								System.out.println("connection to " + host + ":" + port + " failed: " + e);
+							}
+							Thread.sleep(RECONNECT_DELAY);
+						}
+					}
+					catch (InterruptedException e)
+					{
+						// stopped
+					}
+				}
+			}, "worker " + i);
+			workers[i].start();
+		}
+		for (Thread t : workers)
+		{
+			t.join();
+		}
+	}
+}
@@ -44,6 +44,7 @@ public class StandardAbaloneLogic implements GameLogic
 		for (KeyValuePair<Direction, Node> p : b.getEquiPaths().get(0))
 		{
 			p.getValue().setName(String.valueOf(i));
+			p.getValue().setIndex(i);
 			i++;
 		}
 		addManhDist(b.getEquiPaths().get(0));
@@ -151,6 +152,7 @@ public class StandardAbaloneLogic implements GameLogic
 		state.setMarblesRemoved(marblesRemoved);
 
 		initMarbles(state);
+		state.initHash();
 
 		return state;
 	}
@@ -0,0 +1,153 @@
+package abalone.gamestate;
+
+import java.util.List;
+
+import abalone.model.Direction;
+import abalone.model.Node;
+import abalone.model.Player;
+
+/**
+ * Keeps the sums the evaluation functions are built from up to date while
+ * marbles are placed and removed, so an evaluation does not have to scan the
+ * whole board. Per player it holds:
+ * - the sum of the manhattan distances of its marbles to the center
+ * - the number of (marble, direction) pairs with an own marble as neighbour
+ * - the number of (marble, direction) pairs with an opponent marble on both
+ *   sides (breaking a strong group of the opponent)
+ * - the number of (marble, direction) pairs with an opponent marble on one side
+ *   and an own marble on the other side (strengthening the own group)
+ *
+ * All terms only depend on a marble and its direct neighbours, so a change on
+ * one node is handled by removing the terms around that node before the
+ * change and adding them again after the change.
+ */
+public class FeatureAccumulator
+{
+	private static final Direction[] directions = Direction.values();
+
+	private List<Player> players;
+	private int[] manhattanDistance = new int[2];
+	private int[] teammates = new int[2];
+	private int[] breakStrongGroup = new int[2];
+	private int[] strengthenGroup = new int[2];
+
+	public FeatureAccumulator(List<Player> players)
+	{
+		this.players = players;
+	}
+
+	public int getManhattanDistance(Player player)
+	{
+		return manhattanDistance[players.indexOf(player)];
+	}
+
+	public int getTeammates(Player player)
+	{
+		return teammates[players.indexOf(player)];
+	}
+
+	public int getBreakStrongGroup(Player player)
+	{
+		return breakStrongGroup[players.indexOf(player)];
+	}
+
+	public int getStrengthenGroup(Player player)
+	{
+		return strengthenGroup[players.indexOf(player)];
+	}
+
+	/**
+	 * Recomputes all sums from scratch.
+	 */
+	public void rebuild(GameState state)
+	{
+		for (int i = 0; i < 2; i++)
+		{
+			manhattanDistance[i] = 0;
+			teammates[i] = 0;
+			breakStrongGroup[i] = 0;
+			strengthenGroup[i] = 0;
+		}
+		for (Player p : players)
+		{
+			for (Node node : state.getMarbles(p))
+			{
+				manhattanDistance[players.indexOf(p)] += node.getManhDist();
+				for (Direction d : directions)
+				{
+					addTerms(state, node, d, true, 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds (sign 1) or removes (sign -1) all terms that involve the given
+	 * node. Has to be called with sign -1 before the owner of the node changes
+	 * and with sign 1 afterwards.
+	 */
+	void update(GameState state, Node node, int sign)
+	{
+		Player owner = state.getMarbleOwner(node);
+		if (owner != null)
+		{
+			manhattanDistance[players.indexOf(owner)] += sign * node.getManhDist();
+		}
+		for (Direction d : directions)
+		{
+			// node is the marble in the middle
+			addTerms(state, node, d, true, sign);
+			// node is the neighbour in direction d
+			addTerms(state, node.getNeighbour(d.getOpposite()), d, true, sign);
+			// node is the neighbour in the opposite direction of d
+			addTerms(state, node.getNeighbour(d), d, false, sign);
+		}
+	}
+
+	/**
+	 * Adds the terms of one marble in one direction.
+	 *
+	 * @param pair
+	 *            whether the teammates term is added, it only involves the
+	 *            node in direction d
+	 */
+	private void addTerms(GameState state, Node node, Direction d, boolean pair, int sign)
+	{
+		if (node == null)
+		{
+			return;
+		}
+		Player owner = state.getMarbleOwner(node);
+		if (owner == null)
+		{
+			return;
+		}
+		int i = players.indexOf(owner);
+		Player ahead = state.getMarbleOwner(node.getNeighbour(d));
+		if (pair && ahead == owner)
+		{
+			teammates[i] += sign;
+		}
+		if (ahead != null && ahead != owner)
+		{
+			Player behind = state.getMarbleOwner(node.getNeighbour(d.getOpposite()));
+			if (behind == ahead)
+			{
+				breakStrongGroup[i] += sign;
+			}
+			else if (behind == owner)
+			{
+				strengthenGroup[i] += sign;
+			}
+		}
+	}
+
+	void copyInto(FeatureAccumulator target)
+	{
+		target.players = players;
+		System.arraycopy(manhattanDistance, 0, target.manhattanDistance, 0, 2);
+		System.arraycopy(teammates, 0, target.teammates, 0, 2);
+		System.arraycopy(breakStrongGroup, 0, target.breakStrongGroup, 0, 2);
+		System.arraycopy(strengthenGroup, 0, target.strengthenGroup, 0, 2);
+	}
+}
@@ -1,6 +1,5 @@
 package abalone.gamestate;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -31,7 +30,15 @@ public class GameState implements SearchState, SymmetryHashable
 	private int marblesToWin;
 	private Map<Node, Player> marbleOwners;
 	private Map<Player, Set<Node>> marblePositions;
-	private Long hash = null;
+	// The hash is kept as a primitive so that moving marbles does not box a
+	// new Long on every update. It is rebuilt by initHash() after loading.
+	private transient long hash;
+	private transient boolean hashed = false;
+	// Rebuilt on demand after loading, see getFeatures()
+	private transient FeatureAccumulator features;
+	// Accumulators attached by evaluators, with the evaluator as key
+	private transient Object[] accumulatorKeys;
+	private transient StateAccumulator[] accumulators;
 	private Player winner;
 
 	public GameState()
@@ -48,17 +55,25 @@ public class GameState implements SearchState, SymmetryHashable
 
 	public void initHash()
 	{
-		List<Player> states = new ArrayList<Player>(this.getPlayers());
-		states.add(null);
-		ZobristHasher.generateZobristTable(board, states);
+		ZobristHasher.generateZobristTable(board);
 		this.hash = 0l;
+		this.hashed = true;
 		for (Node n : board.getNodes())
 		{
-			hash ^= ZobristHasher.get(n, getMarbleOwner(n));
+			hash ^= ZobristHasher.get(n, owner(getMarbleOwner(n)));
 		}
 		hash ^= currentPlayer.hash();
 	}
 
+	/**
+	 * @return the owner of the Zobrist table for a player, or for an empty
+	 *         node if the player is null
+	 */
+	private int owner(Player player)
+	{
+		return (player == null) ? ZobristHasher.EMPTY : players.indexOf(player);
+	}
+
 	public void setBoard(Board board)
 	{
 		this.board = board;
@@ -76,6 +91,7 @@ public class GameState implements SearchState, SymmetryHashable
 		{
 			marblePositions.put(p, new HashSet<Node>());
 		}
+		features = new FeatureAccumulator(players);
 	}
 
 	public Map<Player, Integer> getMarblesRemoved()
@@ -95,7 +111,7 @@ public class GameState implements SearchState, SymmetryHashable
 
 	public void setCurrentPlayer(Player currentPlayer)
 	{
-		if (hash != null)
+		if (hashed)
 		{
 			hash ^= this.currentPlayer.hash();
 			hash ^= currentPlayer.hash();
@@ -129,24 +145,153 @@ public class GameState implements SearchState, SymmetryHashable
 	public GameState clone()
 	{
 		GameState s2 = new GameState();
+		copyInto(s2);
+		return s2;
+	}
 
-		s2.hash = hash;
-		s2.board = board;
-		s2.currentPlayer = this.currentPlayer;
-		s2.opponentPlayer = this.opponentPlayer;
-		s2.marblesRemoved = new HashMap<Player, Integer>(marblesRemoved);
-		s2.setPlayers(this.players);
-		s2.winner = winner;
-		s2.marbleOwners = new HashMap<Node, Player>(this.marbleOwners);
+	/**
+	 * Copies this state into an existing state object, with the same depth as
+	 * clone(). The maps and sets of the target are cleared and refilled instead
+	 * of being reallocated, so a target that is reused over and over (see the
+	 * search arena of the AIs) does not need new collections for every copy.
+	 * 
+	 * @param target
+	 *            the state that is overwritten with this state
+	 */
+	public void copyInto(GameState target)
+	{
+		target.hash = hash;
+		target.hashed = hashed;
+		target.board = board;
+		target.currentPlayer = this.currentPlayer;
+		target.opponentPlayer = this.opponentPlayer;
+		if (target.marblesRemoved == null)
+		{
+			target.marblesRemoved = new HashMap<Player, Integer>(marblesRemoved);
+		}
+		else
+		{
+			target.marblesRemoved.clear();
+			target.marblesRemoved.putAll(marblesRemoved);
+		}
+		if (target.players != this.players)
+		{
+			target.marblePositions.clear();
+			target.setPlayers(this.players);
+		}
+		target.winner = winner;
+		target.marbleOwners.clear();
+		target.marbleOwners.putAll(this.marbleOwners);
 		for (Entry<Player, Set<Node>> e : marblePositions.entrySet())
 		{
-			Set<Node> nodeset = new HashSet<Node>(e.getValue());
-			s2.marblePositions.put(e.getKey(), nodeset);
+			Set<Node> nodeset = target.marblePositions.get(e.getKey());
+			nodeset.clear();
+			nodeset.addAll(e.getValue());
+		}
+		target.marblesToWin = this.marblesToWin;
+		if (features == null)
+		{
+			target.features = null;
 		}
-		s2.marblesToWin = this.marblesToWin;
+		else
+		{
+			if (target.features == null)
+			{
+				target.features = new FeatureAccumulator(players);
+			}
+			features.copyInto(target.features);
+		}
+		copyAccumulatorsInto(target);
+	}
 
-		return s2;
+	private void copyAccumulatorsInto(GameState target)
+	{
+		if (accumulators == null)
+		{
+			target.accumulatorKeys = null;
+			target.accumulators = null;
+			return;
+		}
+		if (target.accumulators == null || target.accumulators.length != accumulators.length)
+		{
+			target.accumulatorKeys = new Object[accumulators.length];
+			target.accumulators = new StateAccumulator[accumulators.length];
+		}
+		for (int i = 0; i < accumulators.length; i++)
+		{
+			if (target.accumulatorKeys[i] == accumulatorKeys[i] && target.accumulators[i] != null
+					&& target.accumulators[i].getClass() == accumulators[i].getClass())
+			{
+				accumulators[i].copyInto(target.accumulators[i]);
+			}
+			else
+			{
+				target.accumulatorKeys[i] = accumulatorKeys[i];
+				target.accumulators[i] = accumulators[i].copy();
+			}
+		}
+	}
 
+	/**
+	 * @return the accumulator that was attached with the given key, or null
+	 */
+	public StateAccumulator getAccumulator(Object key)
+	{
+		if (accumulators != null)
+		{
+			for (int i = 0; i < accumulators.length; i++)
+			{
+				if (accumulatorKeys[i] == key)
+				{
+					return accumulators[i];
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Attaches an accumulator to this state and to all states that are copied
+	 * from it. The accumulator is rebuilt for this state first.
+	 * 
+	 * @param key
+	 *            the object the accumulator is looked up with, usually the
+	 *            evaluator that uses it
+	 */
+	public void putAccumulator(Object key, StateAccumulator accumulator)
+	{
+		accumulator.rebuild(this);
+		int n = (accumulators == null) ? 0 : accumulators.length;
+		for (int i = 0; i < n; i++)
+		{
+			if (accumulatorKeys[i] == key)
+			{
+				accumulators[i] = accumulator;
+				return;
+			}
+		}
+		Object[] keys = new Object[n + 1];
+		StateAccumulator[] values = new StateAccumulator[n + 1];
+		if (n > 0)
+		{
+			System.arraycopy(accumulatorKeys, 0, keys, 0, n);
+			System.arraycopy(accumulators, 0, values, 0, n);
+		}
+		keys[n] = key;
+		values[n] = accumulator;
+		accumulatorKeys = keys;
+		accumulators = values;
+	}
+
+	private void updateAccumulators(Node node, int sign)
+	{
+		if (accumulators != null)
+		{
+			for (StateAccumulator a : accumulators)
+			{
+				a.update(this, node, sign);
+			}
+		}
 	}
 
 	public void setMarblesToWin(int marblesToWin)
@@ -161,26 +306,46 @@ public class GameState implements SearchState, SymmetryHashable
 
 	public void setMarble(Node node, Player player)
 	{
+		if (features != null)
+		{
+			features.update(this, node, -1);
+		}
+		updateAccumulators(node, -1);
 		this.marbleOwners.put(node, player);
 		this.marblePositions.get(player).add(node);
-		if (hash != null)
+		if (hashed)
+		{
+			hash ^= ZobristHasher.get(node, ZobristHasher.EMPTY);
+			hash ^= ZobristHasher.get(node, owner(player));
+		}
+		if (features != null)
 		{
-			hash ^= ZobristHasher.get(node, null);
-			hash ^= ZobristHasher.get(node, player);
+			features.update(this, node, 1);
 		}
+		updateAccumulators(node, 1);
 	}
 
 	public void removeMarble(Node node)
 	{
 		Player owner = marbleOwners.get(node);
+		if (features != null)
+		{
+			features.update(this, node, -1);
+		}
+		updateAccumulators(node, -1);
 		this.marblePositions.get(owner).remove(node);
 		this.marbleOwners.remove(node);
 
-		if (hash != null)
+		if (hashed)
 		{
-			hash ^= ZobristHasher.get(node, owner);
-			hash ^= ZobristHasher.get(node, null);
+			hash ^= ZobristHasher.get(node, owner(owner));
+			hash ^= ZobristHasher.get(node, ZobristHasher.EMPTY);
 		}
+		if (features != null)
+		{
+			features.update(this, node, 1);
+		}
+		updateAccumulators(node, 1);
 	}
 
 	public Player getMarbleOwner(Node node)
@@ -193,6 +358,20 @@ public class GameState implements SearchState, SymmetryHashable
 		return marblePositions.get(player);
 	}
 
+	/**
+	 * Returns the evaluation sums of this state. They are updated
+	 * incrementally whenever a marble is set or removed.
+	 */
+	public FeatureAccumulator getFeatures()
+	{
+		if (features == null)
+		{
+			features = new FeatureAccumulator(players);
+			features.rebuild(this);
+		}
+		return features;
+	}
+
 	@Override
 	public long[] getSymmetryHashes()
 	{
@@ -202,8 +381,21 @@ public class GameState implements SearchState, SymmetryHashable
 	@Override
 	public long getHash()
 	{
+		if (!hashed)
+		{
+			throw new IllegalStateException("the state has not been hashed, see initHash()");
+		}
 		return hash;
 	}
+
+	/**
+	 * @return whether initHash() has been called, i.e. whether getHash()
+	 *         returns a meaningful value
+	 */
+	public boolean isHashed()
+	{
+		return hashed;
+	}
 	
 	public Player getWinner()
 	{
@@ -0,0 +1,35 @@
+package abalone.gamestate;
+
+import abalone.model.Node;
+
+/**
+ * Incrementally maintained information about a state that an evaluator
+ * attaches to it (see GameState.putAccumulator()). The state tells its
+ * accumulators about every marble that is set or removed, and copies them
+ * along when the state is copied, so the information stays valid throughout a
+ * search without scanning the board.
+ */
+public interface StateAccumulator
+{
+	/**
+	 * Recomputes everything from scratch.
+	 */
+	public void rebuild(GameState state);
+
+	/**
+	 * Removes (sign -1) everything that depends on the given node before its
+	 * owner changes, or adds it again (sign 1) afterwards.
+	 */
+	public void update(GameState state, Node node, int sign);
+
+	/**
+	 * @return a new accumulator with the same contents
+	 */
+	public StateAccumulator copy();
+
+	/**
+	 * Overwrites the contents of the target, which was created by copy() of an
+	 * accumulator for the same board.
+	 */
+	public void copyInto(StateAccumulator target);
+}
@@ -16,12 +16,20 @@ import abalone.model.Player;
 
 public class ZobristHasher
 {
-	private static HashMap<Node, Map<Player, ByteBuffer>> zobristTable;
+	/**
+	 * The owner of an empty node; the players are owners 0 and 1, in the
+	 * order of GameState.getPlayers()
+	 */
+	public static final int EMPTY = 2;
 
-	public static long get(Node node, Player player)
-	{
-		return zobristTable.get(node).get(player).getLong(0);
+	// zobristTable[i][owner] is the hash of the node with index i. The table
+	// depends only on the geometry of the board, so it is generated once and
+	// shared by all states and threads.
+	private static volatile long[][] zobristTable;
 
+	public static long get(Node node, int owner)
+	{
+		return zobristTable[node.getIndex()][owner];
 	}
 
 	public static long[] getSomeSymmetries(long hash)
@@ -56,10 +64,47 @@ public class ZobristHasher
 		return list;
 	}
 
-	public static void generateZobristTable(Board board, List<Player> assignments)
+	/**
+	 * Generates the table for the geometry of the board, unless it has been
+	 * generated before. Can be called by several threads at the same time.
+	 */
+	public static void generateZobristTable(Board board)
+	{
+		if (zobristTable == null)
+		{
+			synchronized (ZobristHasher.class)
+			{
+				if (zobristTable == null)
+				{
+					zobristTable = flatten(board, generateSymmetricZobristTable(board));
+				}
+			}
+		}
+	}
+
+	private static long[][] flatten(Board board, Map<Node, Map<Integer, ByteBuffer>> table)
+	{
+		long[][] flat = new long[board.getNodes().size()][EMPTY + 1];
+		for (Entry<Node, Map<Integer, ByteBuffer>> e : table.entrySet())
+		{
+			for (int owner = 0; owner <= EMPTY; owner++)
+			{
+				flat[e.getKey().getIndex()][owner] = e.getValue().get(owner).getLong(0);
+			}
+		}
+		return flat;
+	}
+
+	private static Map<Node, Map<Integer, ByteBuffer>> generateSymmetricZobristTable(Board board)
 	{
+		List<Integer> assignments = new ArrayList<Integer>();
+		for (int owner = 0; owner <= EMPTY; owner++)
+		{
+			assignments.add(owner);
+		}
 		Random rand = new Random();
-		zobristTable = new HashMap<Node, Map<Player, ByteBuffer>>(board.getNodes().size());
+		Map<Node, Map<Integer, ByteBuffer>> zobristTable = new HashMap<Node, Map<Integer, ByteBuffer>>(board
+				.getNodes().size());
 
 		//generateUnsymmetricZobristTable(board, assignments);
 
@@ -86,7 +131,7 @@ public class ZobristHasher
 		for (int r = 0; r < 4; r++)
 		{
 			// iterate over radius
-			for (Player p : assignments)
+			for (Integer p : assignments)
 			{
 				// for each player
 				
@@ -110,10 +155,10 @@ public class ZobristHasher
 					// Look at all nodes
 					
 					// Get the row for the node n
-					Map<Player, ByteBuffer> m = null;
+					Map<Integer, ByteBuffer> m = null;
 					if((m=zobristTable.get(n))==null)
 					{
-						m = new HashMap<Player,ByteBuffer>();
+						m = new HashMap<Integer,ByteBuffer>();
 						zobristTable.put(n, m);
 					}
 					m.put(p, hash);
@@ -154,7 +199,7 @@ public class ZobristHasher
 		for (int r = 0; r < 2; r++)
 		{
 			// iterate over radius
-			for (Player p : assignments)
+			for (Integer p : assignments)
 			{
 				// for each player
 				
@@ -178,10 +223,10 @@ public class ZobristHasher
 					// Look at all nodes
 					
 					// Get the row for the node n
-					Map<Player, ByteBuffer> m = null;
+					Map<Integer, ByteBuffer> m = null;
 					if((m=zobristTable.get(n))==null)
 					{
-						m = new HashMap<Player,ByteBuffer>();
+						m = new HashMap<Integer,ByteBuffer>();
 						zobristTable.put(n, m);
 					}
 					m.put(p, hash);
@@ -207,8 +252,8 @@ public class ZobristHasher
 		// x1 x2 x2 x2 x2 x2 x2 x3
 		{
 			Node central = board.getCentralNode();
-			Map<Player, ByteBuffer> m = new HashMap<Player,ByteBuffer>(assignments.size());
-			for(Player p : assignments)
+			Map<Integer, ByteBuffer> m = new HashMap<Integer,ByteBuffer>(assignments.size());
+			for(Integer p : assignments)
 			{
 				ByteBuffer hash = ByteBuffer.allocate(8);
 				byte[] bytes = new byte[3];
@@ -233,7 +278,7 @@ public class ZobristHasher
 		for (int i = 19; i < board.getEquiPaths().get(0).size(); i++)
 		{
 			// for every step on the path
-			for (Player p : assignments)
+			for (Integer p : assignments)
 			{
 				// for every assignment
 				ByteBuffer hash = ByteBuffer.allocate(8);
@@ -245,10 +290,10 @@ public class ZobristHasher
 					{
 						// for every rotation
 						Node n = board.getEquiPaths().get(j*6+h).get(i).getValue();
-						Map<Player, ByteBuffer> m = null;
+						Map<Integer, ByteBuffer> m = null;
 						if((m=zobristTable.get(n))==null)
 						{
-							m = new HashMap<Player,ByteBuffer>();
+							m = new HashMap<Integer,ByteBuffer>();
 							zobristTable.put(n, m);
 						}
 						if(!m.containsKey(p))
@@ -264,12 +309,15 @@ public class ZobristHasher
 				}
 			}
 		}
+		return zobristTable;
 	}
 	
-	private static void generateUnsymmetricZobristTable(Board board, List<Player> assignments)
+	private static Map<Node, Map<Integer, ByteBuffer>> generateUnsymmetricZobristTable(Board board,
+			List<Integer> assignments)
 	{
 		Random rand = new Random();
-		zobristTable = new HashMap<Node, Map<Player, ByteBuffer>>(board.getNodes().size());
+		Map<Node, Map<Integer, ByteBuffer>> zobristTable = new HashMap<Node, Map<Integer, ByteBuffer>>(board
+				.getNodes().size());
 		for (int i = 0; i < board.getEquiPaths().get(0).size(); i++)
 		{
 			Node n = board.getEquiPaths().get(0).get(i).getValue();
@@ -277,8 +325,8 @@ public class ZobristHasher
 			{
 				continue;
 			}
-			Map<Player, ByteBuffer> map = new HashMap<Player, ByteBuffer>(assignments.size());
-			for (Player p : assignments)
+			Map<Integer, ByteBuffer> map = new HashMap<Integer, ByteBuffer>(assignments.size());
+			for (Integer p : assignments)
 			{
 				ByteBuffer hash = ByteBuffer.allocate(8);
 				hash.putLong(rand.nextLong());
@@ -286,6 +334,7 @@ public class ZobristHasher
 			}
 			zobristTable.put(n, map);
 		}
+		return zobristTable;
 	}
 
 	private static ByteBuffer alpha(ByteBuffer hash)
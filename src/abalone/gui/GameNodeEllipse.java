@@ -27,7 +27,7 @@ public class GameNodeEllipse extends AbaloneEllipse
 		for(Player p : state.getPlayers())
 		{
 			ByteBuffer hash = ByteBuffer.allocate(8);
-			hash.putLong(ZobristHasher.get(node, p));
+			hash.putLong(ZobristHasher.get(node, state.getPlayers().indexOf(p)));
 			for(int i = 0; i<8;i++)
 			{
 				tt += " |"+hash.get(i)+"|";
@@ -35,7 +35,7 @@ public class GameNodeEllipse extends AbaloneEllipse
 			tt+="\n";
 		}
 		ByteBuffer hash = ByteBuffer.allocate(8);
-		hash.putLong(ZobristHasher.get(node, null));
+		hash.putLong(ZobristHasher.get(node, ZobristHasher.EMPTY));
 		for(int i = 0; i<8;i++)
 		{
 			tt += " |"+hash.get(i)+"|";
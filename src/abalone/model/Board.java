@@ -21,6 +21,7 @@ public class Board implements Serializable
 	private Node centralNode;
 	private List<Node> nodes;
 	private List<List<KeyValuePair<Direction, Node>>> equiPaths;
+	private transient int[][] symmetries;
 	
 	public List<List<KeyValuePair<Direction,Node>>> getEquiPaths()
 	{
@@ -32,6 +33,41 @@ public class Board implements Serializable
 		equiPaths.add(path);
 	}
 
+	/**
+	 * @return the node with the given index, i.e. the node at that position
+	 *         on the first path
+	 */
+	public Node getNode(int index)
+	{
+		return equiPaths.get(0).get(index).getValue();
+	}
+
+	/**
+	 * Returns the symmetries of the board as permutations of the node indices:
+	 * symmetry s maps the node with index i onto the node with index
+	 * getSymmetries()[s][i]. Every path describes the board in the same way
+	 * after a rotation or a reflection, so the permutations are read off the
+	 * paths. Symmetry 0 is the identity.
+	 */
+	public int[][] getSymmetries()
+	{
+		if (symmetries == null)
+		{
+			int[][] table = new int[equiPaths.size()][];
+			for (int s = 0; s < table.length; s++)
+			{
+				List<KeyValuePair<Direction, Node>> path = equiPaths.get(s);
+				table[s] = new int[path.size()];
+				for (int i = 0; i < path.size(); i++)
+				{
+					table[s][i] = path.get(i).getValue().getIndex();
+				}
+			}
+			symmetries = table;
+		}
+		return symmetries;
+	}
+
 	public Node getCentralNode()
 	{
 		return centralNode;
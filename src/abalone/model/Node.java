@@ -16,6 +16,7 @@ public class Node implements Serializable
 	private Map<Direction, Node> neighbourList;
 	private String name;
 	private int manhDist;
+	private int index = -1;
 	
 	public Node(String name)
 	{
@@ -80,6 +81,25 @@ public class Node implements Serializable
 	public int getManhDist(){
 		return manhDist;
 	}
+
+	/**
+	 * Sets the position of the node on the first path of the board
+	 * @param index
+	 */
+	public void setIndex(int index)
+	{
+		this.index = index;
+	}
+
+	/**
+	 * returns the position of the node on the first path of the board, a
+	 * number from 0 to the number of nodes - 1
+	 * @return
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
 	
 	@Override
 	public String toString()
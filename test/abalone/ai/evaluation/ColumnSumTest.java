@@ -0,0 +1,66 @@
+package abalone.ai.evaluation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ColumnSumTest
+{
+	@Test
+	public void implementationsAgree()
+	{
+		Random random = new Random(7);
+		double[] factors = new double[LinearEvaluator.NUMBER_OF_FUNCTIONS];
+		for (int i = 0; i < factors.length; i++)
+		{
+			factors[i] = random.nextGaussian();
+		}
+		for (int count = 0; count < 70; count++)
+		{
+			int[][] columns = new int[factors.length][count];
+			for (int[] column : columns)
+			{
+				for (int k = 0; k < count; k++)
+				{
+					column[k] = random.nextInt(200) - 100;
+				}
+			}
+			double[] expected = new double[count];
+			double[] actual = new double[count];
+			new ColumnSum().sum(factors, columns, count, expected);
+			ColumnSum.get().sum(factors, columns, count, actual);
+			for (int k = 0; k < count; k++)
+			{
+				double sum = 0;
+				for (int i = 0; i < factors.length; i++)
+				{
+					sum += factors[i] * columns[i][k];
+				}
+				assertEquals(sum, expected[k], 0);
+				assertEquals(expected[k], actual[k], 0);
+			}
+		}
+	}
+
+	@Test
+	public void vectorApiIsUsedWhenPresent()
+	{
+		// VectorColumnSum is looked up by name, it is only compiled with the
+		// vector API (see ColumnSum)
+		boolean present = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+		if (present)
+		{
+			try
+			{
+				Class.forName("abalone.ai.evaluation.VectorColumnSum");
+			}
+			catch (ClassNotFoundException e)
+			{
+				present = false;
+			}
+		}
+		assertEquals(present, ColumnSum.get().getClass().getName().equals("abalone.ai.evaluation.VectorColumnSum"));
+	}
+}
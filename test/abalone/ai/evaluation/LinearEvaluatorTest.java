@@ -0,0 +1,62 @@
+package abalone.ai.evaluation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+
+import org.junit.Test;
+
+import abalone.ai.AbaloneSearchProblem;
+import abalone.ai.machinelearning.Weight;
+import abalone.gamelogic.StandardAbaloneLogic;
+import abalone.gamestate.GameState;
+import abalone.model.HumanPlayer;
+import abalone.model.Move;
+import abalone.model.Player;
+
+public class LinearEvaluatorTest
+{
+	private final StandardAbaloneLogic logic = new StandardAbaloneLogic();
+
+	@Test
+	public void batchMatchesSingleEvaluation()
+	{
+		List<Player> players = new ArrayList<Player>();
+		players.add(new HumanPlayer("black"));
+		players.add(new HumanPlayer("white"));
+		Random random = new Random(3);
+
+		Genotype weights = new Genotype();
+		for (int i = 0; i < LinearEvaluator.NUMBER_OF_FUNCTIONS; i++)
+		{
+			weights.add(new Weight(random.nextGaussian()));
+		}
+		LinearEvaluator evaluator = new LinearEvaluator(weights);
+
+		GameState state = logic.initState(logic.initBoard(), players);
+		for (int ply = 0; ply < 100 && logic.getWinner(state) == null; ply++)
+		{
+			evaluator.setInitialState(state);
+			List<Action> actions = new AbaloneSearchProblem(state, logic).generateActions(state);
+			GameState[] children = new GameState[actions.size()];
+			for (int k = 0; k < children.length; k++)
+			{
+				children[k] = state.clone();
+				logic.applyMove(children[k], (Move) actions.get(k));
+			}
+			double[] values = new double[children.length];
+			evaluator.evalBatch(children, children.length, values);
+			for (int k = 0; k < children.length; k++)
+			{
+				// exactly equal, the evaluation cache mixes both
+				assertEquals(evaluator.eval(children[k]), values[k], 0);
+			}
+			logic.applyMove(state, (Move) actions.get(random.nextInt(actions.size())));
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package abalone.ai.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+
+import org.junit.Test;
+
+import abalone.ai.AbaloneSearchProblem;
+import abalone.ai.machinelearning.Position;
+import abalone.gamelogic.StandardAbaloneLogic;
+import abalone.gamestate.GameState;
+import abalone.model.Board;
+import abalone.model.HumanPlayer;
+import abalone.model.Move;
+import abalone.model.Player;
+
+public class NTupleEvaluatorTest
+{
+	private final StandardAbaloneLogic logic = new StandardAbaloneLogic();
+	private final Board board = logic.initBoard();
+	private final List<Player> players = new ArrayList<Player>();
+
+	public NTupleEvaluatorTest()
+	{
+		players.add(new HumanPlayer("black"));
+		players.add(new HumanPlayer("white"));
+	}
+
+	private List<GameState> randomPositions(int count, Random random)
+	{
+		List<GameState> positions = new ArrayList<GameState>();
+		while (positions.size() < count)
+		{
+			GameState state = logic.initState(board, players);
+			for (int ply = 0; ply < 40 && logic.getWinner(state) == null; ply++)
+			{
+				List<Action> actions = new AbaloneSearchProblem(state, logic).generateActions(state);
+				logic.applyMove(state, (Move) actions.get(random.nextInt(actions.size())));
+				positions.add(state.clone());
+			}
+		}
+		return positions;
+	}
+
+	/**
+	 * @return an evaluator with weights that are not symmetric by themselves
+	 */
+	private NTupleEvaluator trained(Random random)
+	{
+		NTupleEvaluator evaluator = new NTupleEvaluator(board);
+		for (GameState s : randomPositions(200, random))
+		{
+			evaluator.learn(s, s.getCurrentPlayer(), 2 * random.nextDouble() - 1, 0.5);
+		}
+		return evaluator;
+	}
+
+	/**
+	 * @return the state with every marble moved to its image under the
+	 *         symmetry
+	 */
+	private GameState image(GameState s, int[] symmetry)
+	{
+		Position p = new Position(s, null);
+		long first = 0;
+		long second = 0;
+		for (int i = 0; i < symmetry.length; i++)
+		{
+			if ((p.getFirst() & (1L << i)) != 0)
+			{
+				first |= 1L << symmetry[i];
+			}
+			if ((p.getSecond() & (1L << i)) != 0)
+			{
+				second |= 1L << symmetry[i];
+			}
+		}
+		return new Position(first, second, p.getToMove(), p.getLostFirst(), p.getLostSecond(), 0.5).toState(logic,
+				board, players);
+	}
+
+	@Test
+	public void symmetricPositionsHaveTheSameValue()
+	{
+		Random random = new Random(1);
+		NTupleEvaluator evaluator = trained(random);
+		int[][] symmetries = board.getSymmetries();
+		assertEquals(12, symmetries.length);
+		for (GameState s : randomPositions(50, random))
+		{
+			for (Player perspective : players)
+			{
+				double value = evaluator.value(s, perspective);
+				for (int[] symmetry : symmetries)
+				{
+					GameState image = image(s, symmetry);
+					assertEquals(value, evaluator.value(image, perspective), 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void swappedColoursHaveTheSameValue()
+	{
+		Random random = new Random(2);
+		NTupleEvaluator evaluator = trained(random);
+		for (GameState s : randomPositions(50, random))
+		{
+			Position p = new Position(s, null);
+			GameState swapped = new Position(p.getSecond(), p.getFirst(), 1 - p.getToMove(), p.getLostSecond(),
+					p.getLostFirst(), 0.5).toState(logic, board, players);
+			assertEquals(evaluator.value(s, players.get(0)), evaluator.value(swapped, players.get(1)), 1e-9);
+		}
+	}
+
+	@Test
+	public void incrementalIndicesMatchAFreshState()
+	{
+		Random random = new Random(3);
+		NTupleEvaluator evaluator = trained(random);
+		for (GameState s : randomPositions(50, random))
+		{
+			// the rebuilt state gets its indices from scratch
+			GameState fresh = new Position(s, null).toState(logic, board, players);
+			assertEquals(evaluator.value(fresh, players.get(0)), evaluator.value(s, players.get(0)), 1e-9);
+		}
+	}
+
+	@Test
+	public void saveAndLoadRoundTrip() throws IOException
+	{
+		Random random = new Random(4);
+		NTupleEvaluator evaluator = trained(random);
+		File file = File.createTempFile("ntuple", ".bin");
+		try
+		{
+			evaluator.save(file);
+			NTupleEvaluator loaded = NTupleEvaluator.load(file);
+			for (GameState s : randomPositions(20, random))
+			{
+				assertEquals(evaluator.value(s, players.get(0)), loaded.value(s, players.get(0)), 0);
+			}
+			assertTrue(evaluator.getTupleCount() > 0);
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+}
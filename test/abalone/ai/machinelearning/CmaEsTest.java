@@ -0,0 +1,78 @@
+package abalone.ai.machinelearning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.FitnessEvaluator;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticIndividual;
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+
+import org.junit.Test;
+
+import abalone.ai.evaluation.LinearEvaluator;
+
+public class CmaEsTest
+{
+	private static final double[] OPTIMUM = { 0.3, -0.7, 1.5, 0.2, 2.0, -3.0 };
+
+	/**
+	 * The negated distance to the optimum on an ellipsoid whose axes differ
+	 * by a factor of 10^5, with a coupling of the first two weights
+	 */
+	private static class Quadratic implements FitnessEvaluator
+	{
+		@Override
+		public GeneticPopulation eval(GeneticPopulation population)
+		{
+			for (GeneticIndividual individual : population)
+			{
+				individual.setFitness(-value(individual));
+			}
+			return population;
+		}
+	}
+
+	private static double value(GeneticIndividual individual)
+	{
+		double[] d = new double[OPTIMUM.length];
+		for (int i = 0; i < d.length; i++)
+		{
+			d[i] = (Double) individual.getPhenotype().get(i).getValue() - OPTIMUM[i];
+		}
+		double value = 0;
+		for (int i = 0; i < d.length; i++)
+		{
+			value += Math.pow(10, i) * d[i] * d[i];
+		}
+		return value + 100 * (d[0] - d[1]) * (d[0] - d[1]);
+	}
+
+	@Test
+	public void findsOptimumOfIllConditionedQuadratic() throws InterruptedException
+	{
+		CmaEs cmaEs = new CmaEs(new Quadratic(), LinearEvaluator.NUMBER_OF_FUNCTIONS);
+		cmaEs.setRandom(new Random(1));
+		cmaEs.setMaxEvaluations(4000);
+		cmaEs.setMaxGenerations(1000);
+		cmaEs.setTolX(1e-9);
+		LinearEvaluator best = cmaEs.run();
+
+		assertTrue(cmaEs.getEvaluations() <= 4000);
+		assertTrue("value " + value(best), value(best) < 1e-8);
+		for (int i = 0; i < OPTIMUM.length; i++)
+		{
+			assertEquals(OPTIMUM[i], (Double) best.getPhenotype().get(i).getValue(), 1e-4);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void tooFewEvaluationsFail() throws InterruptedException
+	{
+		CmaEs cmaEs = new CmaEs(new Quadratic(), LinearEvaluator.NUMBER_OF_FUNCTIONS);
+		cmaEs.setLambda(10);
+		cmaEs.setMaxEvaluations(9);
+		cmaEs.run();
+	}
+}
@@ -0,0 +1,98 @@
+package abalone.ai.machinelearning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.Genotype;
+
+import org.junit.Test;
+
+public class MatchProtocolTest
+{
+	private static Genotype genotype(double... weights)
+	{
+		Genotype genotype = new Genotype();
+		for (double w : weights)
+		{
+			genotype.add(new Weight(w));
+		}
+		return genotype;
+	}
+
+	private static DataInputStream reader(ByteArrayOutputStream bytes)
+	{
+		return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	@Test
+	public void matchRoundTrip() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MatchProtocol.writeMatch(new DataOutputStream(bytes), new MatchProtocol.MatchSpec(17, "some.Logic", 150,
+				genotype(0.5, -0.25, 1e-9), genotype(-1)));
+
+		DataInputStream in = reader(bytes);
+		assertEquals(MatchProtocol.MATCH, in.readByte());
+		MatchProtocol.MatchSpec spec = MatchProtocol.readMatch(in);
+		assertEquals(17, spec.getId());
+		assertEquals("some.Logic", spec.getLogicClass());
+		assertEquals(150, spec.getPlyLvl());
+		assertEquals(3, spec.getFirst().size());
+		assertEquals(-0.25, (Double) spec.getFirst().get(1).getValue(), 0);
+		assertEquals(1e-9, (Double) spec.getFirst().get(2).getValue(), 0);
+		assertEquals(1, spec.getSecond().size());
+		assertEquals(-1, (Double) spec.getSecond().get(0).getValue(), 0);
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void resultRoundTrip() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		MatchProtocol.writeResult(new DataOutputStream(bytes), 3, new MatchStats[] {
+				new MatchStats(true, false, 6, 2, 300), new MatchStats(false, true, 2, 6, 300) });
+
+		DataInputStream in = reader(bytes);
+		assertEquals(MatchProtocol.RESULT, in.readByte());
+		assertEquals(3, in.readInt());
+		MatchStats[] stats = MatchProtocol.readResult(in);
+		assertTrue(stats[0].isWinner());
+		assertFalse(stats[0].isLoser());
+		assertEquals(6, stats[0].getPushedMarbles());
+		assertEquals(2, stats[0].getLostMarbles());
+		assertEquals(300, stats[0].getNumberOfPlies());
+		assertTrue(stats[1].isLoser());
+		assertEquals(6, stats[1].getLostMarbles());
+	}
+
+	@Test
+	public void errorAndHello() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		MatchProtocol.writeHello(out);
+		MatchProtocol.writeError(out, 9, null);
+
+		DataInputStream in = reader(bytes);
+		MatchProtocol.readHello(in);
+		assertEquals(MatchProtocol.ERROR, in.readByte());
+		assertEquals(9, in.readInt());
+		assertEquals("null", in.readUTF());
+	}
+
+	@Test(expected = IOException.class)
+	public void wrongHello() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new DataOutputStream(bytes).writeInt(0x12345678);
+		new DataOutputStream(bytes).writeInt(MatchProtocol.VERSION);
+		MatchProtocol.readHello(reader(bytes));
+	}
+}
@@ -0,0 +1,99 @@
+package abalone.ai.machinelearning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import abalone.ai.TrainedAI;
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+public class OpeningSuiteTest
+{
+	private static OpeningSuite generate(long seed)
+	{
+		return OpeningSuite.generate(new StandardAbaloneLogic(), new LinearEvaluator(TrainedAI.getDefaultWeights()),
+				100, 6, 0.05, new Random(seed));
+	}
+
+	private static void assertSameOpenings(OpeningSuite expected, OpeningSuite actual)
+	{
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+		{
+			assertEquals(expected.get(i).getFirst(), actual.get(i).getFirst());
+			assertEquals(expected.get(i).getSecond(), actual.get(i).getSecond());
+			assertEquals(expected.get(i).getToMove(), actual.get(i).getToMove());
+			assertEquals(expected.get(i).getLostFirst(), actual.get(i).getLostFirst());
+			assertEquals(expected.get(i).getLostSecond(), actual.get(i).getLostSecond());
+		}
+	}
+
+	@Test
+	public void openingsAreDistinctWithoutPushes()
+	{
+		OpeningSuite suite = generate(0);
+		assertEquals(100, suite.size());
+		Set<String> seen = new HashSet<String>();
+		for (int i = 0; i < suite.size(); i++)
+		{
+			Position p = suite.get(i);
+			assertEquals(0, p.getLostFirst() + p.getLostSecond());
+			assertTrue(seen.add(p.getFirst() + " " + p.getSecond() + " " + p.getToMove()));
+		}
+	}
+
+	@Test
+	public void seededGenerationRepeats()
+	{
+		assertSameOpenings(generate(7), generate(7));
+	}
+
+	@Test
+	public void saveAndLoadRoundTrip() throws IOException
+	{
+		OpeningSuite suite = generate(3);
+		File file = File.createTempFile("openings", ".bin");
+		try
+		{
+			suite.save(file);
+			assertEquals(12 + 19 * suite.size(), file.length());
+			assertSameOpenings(suite, OpeningSuite.load(file));
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+
+	@Test
+	public void nextCyclesThroughTheOpenings()
+	{
+		OpeningSuite suite = generate(5);
+		for (int i = 0; i < 2 * suite.size(); i++)
+		{
+			assertTrue(suite.get(i % suite.size()) == suite.next());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherFiles() throws IOException
+	{
+		File file = File.createTempFile("openings", ".bin");
+		try
+		{
+			OpeningSuite.load(file);
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+}
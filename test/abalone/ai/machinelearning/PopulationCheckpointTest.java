@@ -0,0 +1,88 @@
+package abalone.ai.machinelearning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+
+import org.junit.Test;
+
+import abalone.ai.evaluation.LinearEvaluator;
+
+public class PopulationCheckpointTest
+{
+	private static GeneticPopulation population(long seed, int generations)
+	{
+		LinearEvaluator.setRandom(new Random(seed));
+		GeneticPopulation population = new GeneticPopulation();
+		for (int i = 0; i < 4; i++)
+		{
+			population.add(new LinearEvaluator());
+		}
+		for (int g = 0; g < generations; g++)
+		{
+			for (int i = 0; i < population.size(); i++)
+			{
+				population.get(i).mutate();
+			}
+		}
+		return population;
+	}
+
+	private static void assertSameWeights(GeneticPopulation expected, GeneticPopulation actual)
+	{
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+		{
+			for (int w = 0; w < LinearEvaluator.NUMBER_OF_FUNCTIONS; w++)
+			{
+				assertEquals((Double) expected.get(i).getPhenotype().get(w).getValue(), (Double) actual.get(i)
+						.getPhenotype().get(w).getValue(), 0);
+			}
+		}
+	}
+
+	@Test
+	public void seededOperatorsRepeat()
+	{
+		try
+		{
+			assertSameWeights(population(42, 3), population(42, 3));
+		}
+		finally
+		{
+			LinearEvaluator.setRandom(new Random());
+		}
+	}
+
+	@Test
+	public void roundTrip() throws IOException
+	{
+		GeneticPopulation population = population(5, 1);
+		for (int i = 0; i < population.size(); i++)
+		{
+			population.get(i).setFitness(i * 1.5);
+		}
+		LinearEvaluator.setRandom(new Random());
+		File file = File.createTempFile("population", ".bin");
+		try
+		{
+			new PopulationCheckpoint(7, 1234, population).save(file);
+			PopulationCheckpoint loaded = PopulationCheckpoint.load(file);
+			assertEquals(7, loaded.getGeneration());
+			assertEquals(1234, loaded.getSeed());
+			assertSameWeights(population, loaded.getPopulation());
+			for (int i = 0; i < population.size(); i++)
+			{
+				assertEquals(i * 1.5, loaded.getPopulation().get(i).getFitness(), 0);
+			}
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+}
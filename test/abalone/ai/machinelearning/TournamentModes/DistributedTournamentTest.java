@@ -0,0 +1,146 @@
+package abalone.ai.machinelearning.TournamentModes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import nl.maastrichtuniversity.dke.libreason.genetics.GeneticPopulation;
+
+import org.junit.After;
+import org.junit.Test;
+
+import abalone.ai.evaluation.LinearEvaluator;
+import abalone.ai.machinelearning.MatchProtocol;
+import abalone.ai.machinelearning.MatchStats;
+import abalone.gamelogic.StandardAbaloneLogic;
+
+/**
+ * Runs a DistributedTournament against fake workers on this machine that
+ * answer matches with fixed results, drop them or never answer.
+ */
+public class DistributedTournamentTest
+{
+	private DistributedTournament tournament;
+
+	private enum Behaviour
+	{
+		ANSWER, DROP, SILENT
+	}
+
+	@After
+	public void close() throws IOException
+	{
+		if (tournament != null)
+		{
+			tournament.close();
+		}
+	}
+
+	private static GeneticPopulation population(int size)
+	{
+		GeneticPopulation population = new GeneticPopulation();
+		for (int i = 0; i < size; i++)
+		{
+			population.add(new LinearEvaluator());
+		}
+		return population;
+	}
+
+	/**
+	 * Starts a fake worker that connects once per behaviour, the next time
+	 * after its connection ends. An answering worker lets the first player
+	 * of every match win.
+	 */
+	private void worker(final Behaviour... behaviours)
+	{
+		Thread thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				for (Behaviour behaviour : behaviours)
+				{
+					try
+					{
+						connect(behaviour);
+					}
+					catch (IOException e)
+					{
+						// closed by the coordinator
+					}
+				}
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void connect(Behaviour behaviour) throws IOException
+	{
+		Socket socket = new Socket("localhost", tournament.getPort());
+		try
+		{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			MatchProtocol.writeHello(out);
+			while (in.readByte() == MatchProtocol.MATCH)
+			{
+				MatchProtocol.MatchSpec spec = MatchProtocol.readMatch(in);
+				if (behaviour == Behaviour.DROP)
+				{
+					return;
+				}
+				if (behaviour == Behaviour.ANSWER)
+				{
+					MatchProtocol.writeResult(out, spec.getId(), new MatchStats[] {
+							new MatchStats(true, false, 6, 0, 40), new MatchStats(false, true, 0, 6, 40) });
+				}
+			}
+		}
+		finally
+		{
+			socket.close();
+		}
+	}
+
+	@Test(timeout = 30000)
+	public void droppedMatchIsPlayedByAnotherWorker() throws Exception
+	{
+		tournament = new DistributedTournament(0, new StandardAbaloneLogic(), 20);
+		worker(Behaviour.DROP, Behaviour.ANSWER);
+
+		GeneticPopulation population = population(3);
+		tournament.eval(population);
+		// every individual beats the ones after it
+		assertEquals(2, population.get(0).getFitness(), 1e-9);
+		assertEquals(0, population.get(1).getFitness(), 1e-9);
+		assertEquals(-2, population.get(2).getFitness(), 1e-9);
+	}
+
+	@Test(timeout = 30000)
+	public void matchLostByEveryWorkerFailsTheEvaluation() throws Exception
+	{
+		tournament = new DistributedTournament(0, new StandardAbaloneLogic(), 20);
+		tournament.setTimeout(200);
+		tournament.setMaxAttempts(2);
+		worker(Behaviour.SILENT);
+		worker(Behaviour.SILENT);
+
+		try
+		{
+			tournament.eval(population(2));
+			fail("the evaluation did not fail");
+		}
+		catch (RuntimeException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().contains("lost by 2 workers"));
+		}
+	}
+}
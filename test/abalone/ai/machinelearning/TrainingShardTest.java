@@ -0,0 +1,94 @@
+package abalone.ai.machinelearning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrainingShardTest
+{
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException
+	{
+		directory = File.createTempFile("shards", "");
+		directory.delete();
+		directory.mkdirs();
+	}
+
+	@After
+	public void deleteDirectory()
+	{
+		for (File file : directory.listFiles())
+		{
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void recordsRoundTripOverSeveralShards() throws IOException
+	{
+		ShardWriter writer = new ShardWriter(directory, "worker-0");
+		writer.setMaxRecords(5000);
+		Random random = new Random(3);
+		int records = 12345;
+		for (int i = 0; i < records; i++)
+		{
+			Position position = new Position(random.nextLong(), random.nextLong(), i & 1, i % 7, i % 5, (i % 3) / 2.0);
+			writer.write(position, (i % 11 == 0) ? Float.NaN : i * 0.5f, i, i / 100);
+		}
+		writer.close();
+		assertEquals(records, writer.getWritten());
+
+		random = new Random(3);
+		int i = 0;
+		for (int s = 0; s < 3; s++)
+		{
+			File file = new File(directory, "worker-0-" + s + ".bin");
+			TrainingShard shard = TrainingShard.open(file);
+			assertEquals(Math.min(5000, records - i), shard.size());
+			assertEquals(TrainingShard.HEADER_SIZE + shard.size() * TrainingShard.RECORD_SIZE, file.length());
+			for (int k = 0; k < shard.size(); k++, i++)
+			{
+				Position position = shard.getPosition(k);
+				assertEquals(random.nextLong(), position.getFirst());
+				assertEquals(random.nextLong(), position.getSecond());
+				assertEquals(i & 1, position.getToMove());
+				assertEquals(i % 7, position.getLostFirst());
+				assertEquals(i % 5, position.getLostSecond());
+				assertEquals((i % 3) / 2.0, position.getResult(), 0);
+				if (i % 11 == 0)
+				{
+					assertTrue(Float.isNaN(shard.getScore(k)));
+				}
+				else
+				{
+					assertEquals(i * 0.5f, shard.getScore(k), 0);
+				}
+				assertEquals(i, shard.getPly(k));
+				assertEquals(i / 100, shard.getGame(k));
+			}
+		}
+		assertEquals(records, i);
+		assertEquals(3, directory.listFiles().length);
+	}
+
+	@Test(expected = IOException.class)
+	public void otherFilesAreRejected() throws IOException
+	{
+		File file = new File(directory, "other.bin");
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(new byte[64]);
+		out.close();
+		TrainingShard.open(file);
+	}
+}
@@ -0,0 +1,91 @@
+package abalone.gamestate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+
+import org.junit.Test;
+
+import abalone.ai.AbaloneSearchProblem;
+import abalone.gamelogic.StandardAbaloneLogic;
+import abalone.model.HumanPlayer;
+import abalone.model.Move;
+import abalone.model.Player;
+
+public class FeatureAccumulatorTest
+{
+	private final StandardAbaloneLogic logic = new StandardAbaloneLogic();
+
+	private List<Player> players()
+	{
+		List<Player> players = new ArrayList<Player>();
+		players.add(new HumanPlayer("black"));
+		players.add(new HumanPlayer("white"));
+		return players;
+	}
+
+	private static void assertSameSums(FeatureAccumulator expected, FeatureAccumulator actual, List<Player> players)
+	{
+		for (Player p : players)
+		{
+			assertEquals(expected.getManhattanDistance(p), actual.getManhattanDistance(p));
+			assertEquals(expected.getTeammates(p), actual.getTeammates(p));
+			assertEquals(expected.getBreakStrongGroup(p), actual.getBreakStrongGroup(p));
+			assertEquals(expected.getStrengthenGroup(p), actual.getStrengthenGroup(p));
+		}
+	}
+
+	private static FeatureAccumulator rebuilt(GameState state, List<Player> players)
+	{
+		FeatureAccumulator features = new FeatureAccumulator(players);
+		features.rebuild(state);
+		return features;
+	}
+
+	@Test
+	public void incrementalSumsMatchRebuild()
+	{
+		List<Player> players = players();
+		Random random = new Random(1);
+		int pushes = 0;
+		for (int game = 0; game < 5; game++)
+		{
+			GameState state = logic.initState(logic.initBoard(), players);
+			assertSameSums(rebuilt(state, players), state.getFeatures(), players);
+			for (int ply = 0; ply < 200 && logic.getWinner(state) == null; ply++)
+			{
+				int marbles = state.getMarbles(players.get(0)).size() + state.getMarbles(players.get(1)).size();
+				List<Action> actions = new AbaloneSearchProblem(state, logic).generateActions(state);
+				logic.applyMove(state, (Move) actions.get(random.nextInt(actions.size())));
+				if (state.getMarbles(players.get(0)).size() + state.getMarbles(players.get(1)).size() < marbles)
+				{
+					pushes++;
+				}
+				assertSameSums(rebuilt(state, players), state.getFeatures(), players);
+			}
+		}
+		// the removal of pushed marbles is covered as well
+		assertTrue(pushes > 0);
+	}
+
+	@Test
+	public void clonesAreUpdatedSeparately()
+	{
+		List<Player> players = players();
+		Random random = new Random(2);
+		GameState state = logic.initState(logic.initBoard(), players);
+		GameState copy = state.clone();
+		for (int ply = 0; ply < 10; ply++)
+		{
+			List<Action> actions = new AbaloneSearchProblem(copy, logic).generateActions(copy);
+			logic.applyMove(copy, (Move) actions.get(random.nextInt(actions.size())));
+		}
+		assertSameSums(rebuilt(state, players), state.getFeatures(), players);
+		assertSameSums(rebuilt(copy, players), copy.getFeatures(), players);
+	}
+}
@@ -0,0 +1,70 @@
+package abalone.gamestate;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import nl.maastrichtuniversity.dke.libreason.def.Action;
+
+import org.junit.Test;
+
+import abalone.ai.AbaloneSearchProblem;
+import abalone.ai.machinelearning.Position;
+import abalone.gamelogic.StandardAbaloneLogic;
+import abalone.model.HumanPlayer;
+import abalone.model.Move;
+import abalone.model.Player;
+
+public class GameStateHashTest
+{
+	private final StandardAbaloneLogic logic = new StandardAbaloneLogic();
+
+	private List<Player> players()
+	{
+		List<Player> players = new ArrayList<Player>();
+		players.add(new HumanPlayer("black"));
+		players.add(new HumanPlayer("white"));
+		return players;
+	}
+
+	@Test
+	public void incrementalHashMatchesFullHash()
+	{
+		List<Player> players = players();
+		Random random = new Random(1);
+		for (int game = 0; game < 5; game++)
+		{
+			GameState state = logic.initState(logic.initBoard(), players);
+			for (int ply = 0; ply < 60 && logic.getWinner(state) == null; ply++)
+			{
+				List<Action> actions = new AbaloneSearchProblem(state, logic).generateActions(state);
+				logic.applyMove(state, (Move) actions.get(random.nextInt(actions.size())));
+
+				GameState rehashed = state.clone();
+				rehashed.initHash();
+				assertEquals(rehashed.getHash(), state.getHash());
+
+				// states rebuilt from a position are hashed as well
+				GameState rebuilt = new Position(state, null).toState(logic, logic.initBoard(), players);
+				assertEquals(state.getHash(), rebuilt.getHash());
+			}
+		}
+	}
+
+	@Test
+	public void tableIsSharedBetweenBoards()
+	{
+		List<Player> players = players();
+		GameState first = logic.initState(logic.initBoard(), players);
+		GameState second = logic.initState(logic.initBoard(), players);
+		assertEquals(first.getHash(), second.getHash());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void unhashedStateFails()
+	{
+		new GameState().getHash();
+	}
+}